@@ -0,0 +1,63 @@
+package rook.core;
+
+import pythagoras.i.Dimension;
+
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Random positions for the benchmarks.
+ */
+final class BenchSetup {
+
+  private BenchSetup() {}
+
+  /**
+   * @returns an engine on a `size` x `size` board with a player king and `pieces - 1` other pieces, every second
+   * one an enemy. The enemies have made their intentions.
+   */
+  static Engine randomGame(int size, int pieces, long seed) {
+    Random random = new Random(seed);
+    Position position = new Position(new Dimension(size, size), false);
+    Engine engine = new Engine(position, new Random(seed));
+    BitSet taken = new BitSet();
+    engine.addPiece(Piece.Side.PLAYER, Piece.Type.KING, freeSquare(random, position, taken));
+    Piece.Type[] types = Piece.Type.values();
+    for (int i = 1; i < pieces; i++) {
+      Piece.Side side = i % 2 == 0 ? Piece.Side.PLAYER : Piece.Side.ENEMY;
+      engine.addPiece(side, types[random.nextInt(types.length)], freeSquare(random, position, taken));
+    }
+    engine.makeIntentions();
+    position.clearHistory();
+    return engine;
+  }
+
+  private static int freeSquare(Random random, Position position, BitSet taken) {
+    int square;
+    do {
+      square = random.nextInt(position.squareCount());
+    } while (taken.get(square));
+    taken.set(square);
+    return square;
+  }
+
+  /**
+   * @returns the first legal player move as pieceIndex << 16 | dest, pushes preferred.
+   */
+  static int firstPlayerMove(Engine engine) {
+    Position position = engine.position;
+    BitSet moves = new BitSet();
+    int result = -1;
+    for (int index = 0; index < position.size(); index++) {
+      if (position.side(index) != Piece.Side.PLAYER) continue;
+      moves.clear();
+      engine.playerMoves(index, moves);
+      for (int dest = moves.nextSetBit(0); dest >= 0; dest = moves.nextSetBit(dest + 1)) {
+        if (position.occupied().get(dest)) return index << 16 | dest;
+        if (result < 0) result = index << 16 | dest;
+      }
+    }
+    if (result < 0) throw new IllegalStateException("no player move");
+    return result;
+  }
+}
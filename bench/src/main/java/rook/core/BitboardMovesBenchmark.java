@@ -0,0 +1,46 @@
+package rook.core;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PieceMoves#moves} on 8x8 {@link Bitboard}s, to compare with {@link PieceMovesBenchmark} at size 8.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BitboardMovesBenchmark {
+
+  @Param({"8", "32"})
+  int pieces;
+
+  @Param({"KING", "ROOK", "BISHOP"})
+  Piece.Type type;
+
+  private long blocked;
+  private long captures;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(0);
+    for (int i = 0; i < pieces; i++) {
+      long bit = Bitboard.bit(random.nextInt(Bitboard.SQUARES));
+      if (i % 2 == 0) blocked |= bit;
+      else captures |= bit;
+    }
+    captures &= ~blocked;
+  }
+
+  @Benchmark
+  public void allSquares(Blackhole bh) {
+    for (int square = 0; square < Bitboard.SQUARES; square++) {
+      bh.consume(PieceMoves.moves(type, square, blocked, captures));
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package rook.core;
+
+import org.openjdk.jmh.annotations.*;
+import playn.core.Log;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full {@link GameState#tryMoveSelectedPiece} turn on a hand-made level, including the reactive updates for the
+ * UI, followed by {@link GameState#undoLastTurn}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameStateBenchmark {
+
+  private static final Log NO_LOG = new Log() {
+    @Override
+    protected void logImpl(Level level, String msg, Throwable e) {}
+  };
+
+  @Param({"1", "2"})
+  int level;
+
+  private GameState state;
+  private Piece piece;
+  private int dest;
+
+  @Setup
+  public void setup() {
+    state = new GameState(new Rng(0), NO_LOG, false);
+    Levels.setup(level, state::addPiece);
+    Engine engine = new Engine(state.position.copy(), new Random(0));
+    int move = BenchSetup.firstPlayerMove(engine);
+    piece = state.pieces.get(move >>> 16);
+    dest = move & 0xffff;
+  }
+
+  @Benchmark
+  public boolean turn() {
+    boolean legal = state.tryMoveSelectedPiece(piece, dest);
+    state.undoLastTurn();
+    return legal;
+  }
+}
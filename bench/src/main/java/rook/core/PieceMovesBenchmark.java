@@ -0,0 +1,57 @@
+package rook.core;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pythagoras.i.Dimension;
+import pythagoras.i.IDimension;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PieceMoves#moves} on the BitSet API for every square of a board with `pieces` random pieces.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PieceMovesBenchmark {
+
+  @Param({"8", "16", "64", "256"})
+  int size;
+
+  @Param({"8", "32"})
+  int pieces;
+
+  @Param({"KING", "ROOK", "BISHOP"})
+  Piece.Type type;
+
+  private IDimension dim;
+  private final BitSet blocked = new BitSet();
+  private final BitSet captures = new BitSet();
+  private final BitSet result = new BitSet();
+
+  @Setup
+  public void setup() {
+    dim = new Dimension(size, size);
+    Random random = new Random(0);
+    for (int i = 0; i < pieces; i++) {
+      (i % 2 == 0 ? blocked : captures).set(random.nextInt(size * size));
+    }
+    captures.andNot(blocked);
+  }
+
+  /**
+   * The time per square is the reported time divided by size * size
+   */
+  @Benchmark
+  public void allSquares(Blackhole bh) {
+    for (int square = 0; square < size * size; square++) {
+      result.clear();
+      bh.consume(PieceMoves.moves(dim, type, square, blocked, captures, result));
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package rook.core;
+
+import org.openjdk.jmh.annotations.*;
+import pythagoras.i.Dimension;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A player rook pushing a chain of `chain` enemies along the top row, the last one over the board if the chain
+ * reaches the edge. Includes unmaking the move. Chains longer than the row are cut to fill it, so 62 pushes the
+ * whole row on every size, up to a chain about as long as the widest board.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PushChainBenchmark {
+
+  @Param({"8", "16", "64"})
+  int size;
+
+  @Param({"1", "3", "6", "62"})
+  int chain;
+
+  private Position position;
+  private Engine engine;
+  private int rook;
+
+  @Setup
+  public void setup() {
+    int length = Math.min(chain, size - 2);
+    position = new Position(new Dimension(size, size), false);
+    engine = new Engine(position, new Random(0));
+    engine.addPiece(Piece.Side.PLAYER, Piece.Type.KING, size * size - 1);
+    rook = engine.addPiece(Piece.Side.PLAYER, Piece.Type.ROOK, 0);
+    for (int x = 2; x < 2 + length; x++) {
+      engine.addPiece(Piece.Side.ENEMY, Piece.Type.KING, x);
+    }
+    position.clearHistory();
+  }
+
+  @Benchmark
+  public boolean push() {
+    int mark = position.mark();
+    boolean legal = engine.playTurn(rook, 2);
+    position.undo(mark);
+    return legal;
+  }
+}
@@ -0,0 +1,70 @@
+package rook.core;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The steps of a turn on a random position with `pieces` pieces. Every benchmark that changes the position unmakes
+ * its changes again, the undo is part of the measured time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TurnBenchmark {
+
+  @Param({"8", "16", "64", "256"})
+  int size;
+
+  @Param({"8", "32"})
+  int pieces;
+
+  private Position position;
+  private Engine engine;
+  private MoveIntention[] intentions;
+  private int move;
+
+  @Setup
+  public void setup() {
+    engine = BenchSetup.randomGame(size, pieces, 0);
+    position = engine.position;
+    intentions = new MoveIntention[position.intentionCount()];
+    for (int i = 0; i < intentions.length; i++) {
+      intentions[i] = position.intention(i);
+    }
+    move = BenchSetup.firstPlayerMove(engine);
+  }
+
+  @Benchmark
+  public void calcDest(Blackhole bh) {
+    for (MoveIntention intention : intentions) {
+      bh.consume(intention.calcDestSquare(position));
+    }
+  }
+
+  @Benchmark
+  public void moveEnemyPieces() {
+    int mark = position.mark();
+    engine.moveEnemyPieces();
+    position.undo(mark);
+  }
+
+  @Benchmark
+  public void makeIntentions() {
+    int mark = position.mark();
+    engine.makeIntentions();
+    position.undo(mark);
+  }
+
+  @Benchmark
+  public boolean playerTurn() {
+    int mark = position.mark();
+    boolean legal = engine.tryPlayerMove(move >>> 16, move & 0xffff);
+    position.undo(mark);
+    return legal;
+  }
+}
@@ -0,0 +1,124 @@
+package rook.core;
+
+import pythagoras.i.IDimension;
+
+import java.util.BitSet;
+
+/**
+ * Primitive bitboards for 8x8 boards. Bit {@code y * 8 + x} represents the square at (x, y), which is the same
+ * index as {@link de.cdietze.playn_util.PointUtils#toIndex}, so square indices can be used interchangeably with
+ * the {@link BitSet} based API in {@link PieceMoves}.
+ */
+public final class Bitboard {
+
+  private Bitboard() {}
+
+  public static final int WIDTH = 8;
+  public static final int HEIGHT = 8;
+  public static final int SQUARES = WIDTH * HEIGHT;
+
+  public static final long EMPTY = 0L;
+  /** All squares except the ones with x == 0 */
+  static final long NOT_LEFT_EDGE = 0xfefefefefefefefeL;
+  /** All squares except the ones with x == 7 */
+  static final long NOT_RIGHT_EDGE = 0x7f7f7f7f7f7f7f7fL;
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  /**
+   * Maps square -> all bordering squares
+   */
+  private static final long[] KING_MASKS = new long[SQUARES];
+  /**
+   * Maps direction ordinal -> square -> all squares in that direction on an empty board
+   */
+  private static final long[][] RAYS = new long[DIRECTIONS.length][SQUARES];
+
+  static {
+    for (int square = 0; square < SQUARES; square++) {
+      long from = bit(square);
+      for (Direction dir : DIRECTIONS) {
+        KING_MASKS[square] |= shift(from, dir);
+        RAYS[dir.ordinal()][square] = slide(from, dir, ~EMPTY);
+      }
+    }
+  }
+
+  /**
+   * @returns whether boards of the given dimension can be represented by a single bitboard.
+   */
+  public static boolean supports(IDimension dim) {
+    return dim.width() == WIDTH && dim.height() == HEIGHT;
+  }
+
+  public static long bit(int square) { return 1L << square; }
+
+  public static boolean get(long bitboard, int square) { return (bitboard & bit(square)) != 0; }
+
+  /**
+   * @returns the lowest square in the given bitboard or -1 if it is empty.
+   */
+  public static int first(long bitboard) {
+    return bitboard == 0 ? -1 : Long.numberOfTrailingZeros(bitboard);
+  }
+
+  public static long kingMask(int square) { return KING_MASKS[square]; }
+
+  public static long ray(int square, Direction dir) { return RAYS[dir.ordinal()][square]; }
+
+  /**
+   * @returns the given squares moved one step in `dir`. Squares that would leave the board are dropped.
+   */
+  public static long shift(long bitboard, Direction dir) {
+    switch (dir) {
+      case UP:
+        return bitboard >>> 8;
+      case UP_RIGHT:
+        return (bitboard >>> 7) & NOT_LEFT_EDGE;
+      case RIGHT:
+        return (bitboard << 1) & NOT_LEFT_EDGE;
+      case DOWN_RIGHT:
+        return (bitboard << 9) & NOT_LEFT_EDGE;
+      case DOWN:
+        return bitboard << 8;
+      case DOWN_LEFT:
+        return (bitboard << 7) & NOT_RIGHT_EDGE;
+      case LEFT:
+        return (bitboard >>> 1) & NOT_RIGHT_EDGE;
+      case UP_LEFT:
+        return (bitboard >>> 9) & NOT_RIGHT_EDGE;
+    }
+    throw new RuntimeException("unknown direction: " + dir);
+  }
+
+  /**
+   * Slides all `from` squares in `dir` as long as they move over `empty` squares.
+   *
+   * @returns all squares passed, including the first non-empty square of each ray.
+   */
+  public static long slide(long from, Direction dir, long empty) {
+    long result = 0L;
+    long cur = from;
+    for (int i = 1; i < WIDTH && cur != 0; i++) {
+      cur = shift(cur, dir);
+      result |= cur;
+      cur &= empty;
+    }
+    return result;
+  }
+
+  public static long fromBitSet(BitSet bitSet) {
+    long result = 0L;
+    for (int i = bitSet.nextSetBit(0); i >= 0 && i < SQUARES; i = bitSet.nextSetBit(i + 1)) {
+      result |= bit(i);
+    }
+    return result;
+  }
+
+  public static BitSet toBitSet(long bitboard, BitSet result) {
+    for (long rest = bitboard; rest != 0; rest &= rest - 1) {
+      result.set(Long.numberOfTrailingZeros(rest));
+    }
+    return result;
+  }
+}
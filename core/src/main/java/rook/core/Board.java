@@ -1,17 +1,17 @@
 package rook.core;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableList;
 import de.cdietze.playn_util.PointUtils;
-import playn.core.Image;
+import playn.core.Canvas;
+import playn.core.GL20;
 import playn.core.Platform;
-import playn.core.Surface;
+import playn.core.Texture;
+import playn.core.Tile;
 import playn.scene.GroupLayer;
 import playn.scene.ImageLayer;
 import playn.scene.Layer;
 import playn.scene.Pointer;
 import react.RList;
-import react.RSet;
 import react.Value;
 import tripleplay.anim.Animator;
 import tripleplay.util.Colors;
@@ -25,6 +25,7 @@ import static de.cdietze.playn_util.PointUtils.toY;
 public class Board {
   interface Depths {
     float SQUARES = 0f;
+    float SQUARE_HIGHLIGHT = .5f;
     float PIECES = 1f;
     float INTENTIONS = 2f;
     float FOG_OF_WAR = 3f;
@@ -34,7 +35,10 @@ public class Board {
   private final Platform plat;
   private final GameState state;
   public final GroupLayer rootLayer = new GroupLayer();
-  private final List<Layer> squareLayers;
+  /**
+   * Flashes on the clicked square
+   */
+  private final Layer clickLayer;
   /**
    * Maps pieceId -> pieceLayer
    */
@@ -46,6 +50,7 @@ public class Board {
    * Use a separate animator so that we can use barriers to queue progress
    */
   private final Animator moveAnim = new Animator();
+  private final TurnAnimator turnAnim = new TurnAnimator(moveAnim);
 
   private final Animator fxAnim;
 
@@ -54,35 +59,48 @@ public class Board {
     this.plat = screen.plat;
     this.state = screen.state;
     this.fxAnim = screen.iface.anim;
-    screen.iface.frame.connect(moveAnim.onPaint);
+    screen.iface.frame.connect(clock -> turnAnim.paint(clock.dt));
     rootLayer.setName("board");
     rootLayer.setSize(state.dim.width(), state.dim.height());
     rootLayer.setOrigin(Layer.Origin.CENTER);
     rootLayer.addAt(Layers.solid(0xff222222, state.dim.width(), state.dim.height()).setOrigin(Layer.Origin.CENTER).setDepth(-10), rootLayer.width() / 2, rootLayer.height() / 2);
-    this.squareLayers = createSquareLayers();
+    rootLayer.add(createSquaresLayer());
+    this.clickLayer = Layers.solid(0xff222222, 1f, 1f)
+            .setOrigin(Layer.Origin.CENTER)
+            .setDepth(Depths.SQUARE_HIGHLIGHT)
+            .setAlpha(0f);
+    rootLayer.add(clickLayer);
     initAddPieceListener();
     initMovePieceListener();
-    initIntentionLayersListener();
+    initTurnUndoneListener();
+    initIntentionLayer();
     initHighlightSelectedPieceListener();
     initFogOfWar();
     initInputListener();
   }
 
-  private ImmutableList<Layer> createSquareLayers() {
-    ImmutableList.Builder<Layer> squareLayersBuilder = ImmutableList.builder();
-    for (int y = 0; y < state.dim.height(); ++y) {
-      for (int x = 0; x < state.dim.width(); ++x) {
-        int color = (x + y) % 2 == 0 ? Colors.DARK_GRAY : Colors.GRAY;
-        Layer squareLayer = Layers.solid(color, 1f, 1f)
-                .setName("square_" + x + "_" + y)
-                .setOrigin(Layer.Origin.CENTER)
-                .setDepth(Depths.SQUARES);
-
-        rootLayer.addAt(squareLayer, x + .5f, y + .5f);
-        squareLayersBuilder.add(squareLayer);
+  /**
+   * Paints the checkerboard into a texture with one pixel per square, so that the board is a single layer no matter
+   * its size.
+   */
+  private Layer createSquaresLayer() {
+    int width = state.dim.width();
+    int height = state.dim.height();
+    Canvas canvas = plat.graphics().createCanvas(width, height);
+    canvas.setFillColor(Colors.GRAY).fillRect(0, 0, width, height);
+    canvas.setFillColor(Colors.DARK_GRAY);
+    for (int y = 0; y < height; ++y) {
+      for (int x = y % 2; x < width; x += 2) {
+        canvas.fillRect(x, y, 1, 1);
       }
     }
-    return squareLayersBuilder.build();
+    // Scale the pixels up without blurring the squares into each other
+    Texture texture = canvas.toTexture(Texture.Config.DEFAULT.filter(GL20.GL_NEAREST, GL20.GL_NEAREST));
+    canvas.close();
+    return new ImageLayer(texture)
+            .setSize(width, height)
+            .setName("squares")
+            .setDepth(Depths.SQUARES);
   }
 
   private void initAddPieceListener() {
@@ -91,7 +109,7 @@ public class Board {
       public void onAdd(Piece piece) {
         int x = toX(state.dim, piece.pos);
         int y = toY(state.dim, piece.pos);
-        final Layer pieceLayer = createPieceLayer(screen.game.images.pieceImage(piece.side, piece.type))
+        final Layer pieceLayer = createPieceLayer(screen.game.images.pieceTile(piece.side, piece.type))
                 .setTranslation(x + .5f, y + .5f);
         pieceLayers.put(piece.id, pieceLayer);
         rootLayer.add(pieceLayer);
@@ -113,7 +131,7 @@ public class Board {
         int x = toX(state.dim, e.piece.pos);
         int y = toY(state.dim, e.piece.pos);
         moveAnim.tweenTranslation(pieceLayers.get(e.piece.id)).to(x + .5f, y + .5f).in(200).easeInOut();
-        moveAnim.addBarrier();
+        turnAnim.endStep();
       }
       // Handle pushes
       e.consequences.forEach(c -> {
@@ -123,7 +141,7 @@ public class Board {
           int y = push.destY(state.dim);
           moveAnim.tweenTranslation(
                   pieceLayers.get(push.piece.id)).to(x + .5f, y + .5f).in(200).easeInOut();
-          moveAnim.addBarrier();
+          turnAnim.endStep();
         } else if (c instanceof PiecePushedOverBoard) {
           PiecePushedOverBoard push = (PiecePushedOverBoard) c;
           int x = push.destX(state.dim);
@@ -131,49 +149,43 @@ public class Board {
           Layer l = pieceLayers.remove(push.piece.id);
           moveAnim.tweenTranslation(l).to(x + .5f, y + .5f).in(200).easeInOut()
                   .then().tweenScale(l).to(0f).in(200).easeIn().then().dispose(l);
-          moveAnim.addBarrier();
+          turnAnim.endStep();
         }
       });
     });
   }
 
-  private void initIntentionLayersListener() {
-    List<Layer> intentionLayers = new ArrayList<>();
-    state.moveIntentions.connectNotify(new RList.Listener<MoveIntention>() {
-      float width = state.dim.width();
-      float height = state.dim.height();
-      @Override
-      public void onAdd(MoveIntention intention) {
-        Piece piece = state.pieceById(intention.pieceId);
-        int posX = toX(state.dim, piece.pos);
-        int posY = toY(state.dim, piece.pos);
-        // TODO update gfx when intention.dest changes
-        int dest = intention.calcDest(state).get();
-        int destX = toX(state.dim, dest);
-        int destY = toY(state.dim, dest);
-        Layer intentionLayer = new Layer() {
-          @Override
-          public float width() { return width; }
-          @Override
-          public float height() { return height; }
-          @Override
-          protected void paintImpl(Surface surf) {
-            surf.setFillColor(Colors.darker(Colors.RED))
-                    .drawLine(posX + .5f, posY + .5f, destX + .5f, destY + .5f, 0.1f);
-          }
-        }.setDepth(Depths.INTENTIONS)
-                .setVisible(false);
-        intentionLayers.add(intentionLayer);
-        rootLayer.add(intentionLayer);
-        moveAnim.setVisible(intentionLayer, true);
-      }
-      @Override
-      public void onRemove(int index, MoveIntention intention) {
-        moveAnim.dispose(intentionLayers.remove(index));
-      }
+  private void initTurnUndoneListener() {
+    state.turnUndone.connect(() -> {
+      // Pieces that were removed in the undone turn got new layers when they were added back, move the others back
+      // once the pending animations are done
+      Map<Integer, Integer> posById = new HashMap<>();
+      state.pieces.forEach(piece -> posById.put(piece.id, piece.pos));
+      moveAnim.addBarrier();
+      moveAnim.action(() -> posById.forEach((pieceId, pos) -> {
+        Layer l = pieceLayers.get(pieceId);
+        if (l != null) l.setTranslation(toX(state.dim, pos) + .5f, toY(state.dim, pos) + .5f);
+      }));
+      selectedPieceId.update(-1);
     });
   }
 
+  private void initIntentionLayer() {
+    IntentionPaths paths = new IntentionPaths(state);
+    IntentionLayer intentionLayer = new IntentionLayer(state.dim);
+    intentionLayer.setName("intentions").setDepth(Depths.INTENTIONS);
+    rootLayer.add(intentionLayer);
+    // Show the changes once the pending animations are done. Moves are handled as they happen so that pushed
+    // intentions follow the animated pushes, anything else, like new intentions, in the next frame.
+    Runnable update = () -> {
+      if (!paths.update()) return;
+      int[] lines = paths.lines();
+      moveAnim.action(() -> intentionLayer.setLines(lines));
+    };
+    state.pieceMoved.connect(e -> update.run());
+    screen.iface.frame.connect(clock -> update.run());
+  }
+
   private void initHighlightSelectedPieceListener() {
     selectedPieceId.connectNotify((pieceId, oldPieceId) -> {
       if (oldPieceId != null && oldPieceId >= 0) {
@@ -186,28 +198,18 @@ public class Board {
   }
 
   private void initFogOfWar() {
-    List<Layer> fogLayers = new ArrayList<>();
-    state.fogSquares.connectNotify(new RSet.Listener<Integer>() {
-      @Override
-      public void onAdd(Integer pos) {
-        int x = toX(state.dim, pos);
-        int y = toY(state.dim, pos);
-        Layer layer = Layers.solid(Colors.BLACK, 1f, 1f)
-                .setName("fog_" + x + "_" + y)
-                .setOrigin(Layer.Origin.CENTER)
-                .setDepth(Depths.FOG_OF_WAR);
-        rootLayer.addAt(layer, x + .5f, y + .5f);
-        while (fogLayers.size() <= pos) {
-          fogLayers.add(null);
-        }
-        fogLayers.set(pos, layer);
-      }
-      @Override
-      public void onRemove(Integer pos) {
-        Layer layer = fogLayers.get(pos);
-        moveAnim.tweenAlpha(layer).to(0f).in(500f).easeOut().then().dispose(layer);
-        fogLayers.set(pos, null);
-      }
+    FogLayer fogLayer = new FogLayer(plat.graphics(), state.dim, state.fog.get());
+    fogLayer.setName("fog").setDepth(Depths.FOG_OF_WAR);
+    rootLayer.add(fogLayer);
+    screen.iface.frame.connect(clock -> fogLayer.update(clock.dt));
+    // The signals reuse their bit sets, copy them for the queued actions
+    state.fogAdded.connect(squares -> {
+      BitSet copy = (BitSet) squares.clone();
+      moveAnim.action(() -> fogLayer.addFog(copy));
+    });
+    state.fogRevealed.connect(squares -> {
+      BitSet copy = (BitSet) squares.clone();
+      moveAnim.action(() -> fogLayer.reveal(copy));
     });
   }
 
@@ -219,8 +221,10 @@ public class Board {
         int pos = hitPos(iact);
         plat.log().debug("onStart", "iact", iact, "screen", new pythagoras.f.Point(iact), "local", iact.local, "pos", pos);
         if (pos < 0) return;
-        Layer squareLayer = squareLayers.get(pos);
-        fxAnim.tweenAlpha(squareLayer).from(.5f).to(1f).in(500);
+        // The state is already final, catch up with it before handling the click
+        turnAnim.finish();
+        clickLayer.setTranslation(PointUtils.toX(state.dim, pos) + .5f, PointUtils.toY(state.dim, pos) + .5f);
+        fxAnim.tweenAlpha(clickLayer).from(.5f).to(0f).in(500);
         clickOnSquare(pos);
       }
 
@@ -232,13 +236,31 @@ public class Board {
     });
   }
 
-  private Layer createPieceLayer(Image image) {
-    return new ImageLayer(image)
+  private Layer createPieceLayer(Tile tile) {
+    return new ImageLayer(tile)
             .setSize(1f, 1f)
             .setOrigin(Layer.Origin.CENTER)
             .setDepth(Depths.PIECES);
   }
 
+  /**
+   * @returns the number of layers of the board at `depth`, see {@link Depths}.
+   */
+  int layerCount(float depth) {
+    int result = 0;
+    for (int i = 0; i < rootLayer.children(); i++) {
+      if (rootLayer.childAt(i).depth() == depth) result++;
+    }
+    return result;
+  }
+
+  /**
+   * Completes the queued move animations right away, e.g. before handling new input.
+   */
+  void finishAnimations() {
+    turnAnim.finish();
+  }
+
   private void clickOnSquare(int pos) {
     int clickedPieceIndex = state.pieceIndexByPos(pos);
     if (selectedPieceId.get() >= 0) {
@@ -2,7 +2,12 @@ package rook.core;
 
 import de.cdietze.playn_util.ScaledElement;
 import de.cdietze.playn_util.Screen;
+import playn.core.Key;
+import playn.core.Keyboard;
+import react.Connection;
 import tripleplay.ui.Background;
+import tripleplay.ui.Button;
+import tripleplay.ui.Label;
 import tripleplay.ui.Root;
 import tripleplay.ui.Style;
 import tripleplay.ui.layout.BorderLayout;
@@ -13,6 +18,9 @@ public class BoardScreen extends Screen {
   public final MainGame game;
   public final GameState state;
 
+  private FrameHud frameHud;
+  private Connection frameHudKey;
+
   public BoardScreen(MainGame game, GameState state) {
     super(game);
     this.game = game;
@@ -24,10 +32,55 @@ public class BoardScreen extends Screen {
     super.wasAdded();
     Root root = iface.createRoot(new BorderLayout(), UiUtils.newSheet(plat.graphics()), layer);
     root.setSize(plat.graphics().viewSize);
+    // Show the board once the images are loaded so that the pieces do not pop in
+    Label loading = new Label().setConstraint(BorderLayout.CENTER);
+    Connection progress = game.images.progress().connectNotify(
+            fraction -> loading.text.update("Loading " + Math.round(fraction * 100) + "%"));
+    root.add(loading);
+    game.images.ready.onSuccess(images -> {
+      progress.close();
+      root.remove(loading);
+      addBoard(root);
+    }).onFailure(e -> {
+      progress.close();
+      plat.log().warn("Failed to load images", e);
+      loading.text.update("Failed to load images");
+    });
+  }
+
+  private void addBoard(Root root) {
     Board board = new Board(this);
     float margin = 40f;
     ScaledElement scaledElement = new ScaledElement(board.rootLayer);
     scaledElement.addStyles(Style.BACKGROUND.is(Background.solid(Colors.BLACK).inset(margin)));
     root.add(scaledElement.setConstraint(BorderLayout.CENTER));
+    root.add(new Button("Undo").onClick(b -> {
+      board.finishAnimations();
+      state.undoLastTurn();
+    }).setConstraint(BorderLayout.SOUTH));
+    frameHud = new FrameHud(game, board, game.config.allocatedBytes);
+    if (game.config.frameHud) toggleFrameHud(root);
+    frameHudKey = plat.input().keyboardEvents.connect(event -> {
+      if (!(event instanceof Keyboard.KeyEvent)) return;
+      Keyboard.KeyEvent keyEvent = (Keyboard.KeyEvent) event;
+      if (keyEvent.down && keyEvent.key == Key.F3) toggleFrameHud(root);
+    });
+  }
+
+  private void toggleFrameHud(Root root) {
+    if (frameHud.isShown()) {
+      frameHud.hide();
+      root.remove(frameHud.group);
+    } else {
+      frameHud.show();
+      root.add(frameHud.group.setConstraint(BorderLayout.NORTH));
+    }
+  }
+
+  @Override
+  public void wasRemoved() {
+    super.wasRemoved();
+    if (frameHudKey != null) frameHudKey.close();
+    if (frameHud != null) frameHud.hide();
   }
 }
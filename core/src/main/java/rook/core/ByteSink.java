@@ -0,0 +1,75 @@
+package rook.core;
+
+import java.util.Arrays;
+
+/**
+ * A growable byte array to encode binary formats into. There is no java.nio in the GWT backend.
+ */
+final class ByteSink {
+
+  private byte[] bytes;
+  private int length;
+
+  ByteSink(int capacity) {
+    this.bytes = new byte[capacity];
+  }
+
+  int length() { return length; }
+
+  void writeByte(int value) {
+    ensureCapacity(1);
+    bytes[length++] = (byte) value;
+  }
+
+  /**
+   * Writes a non-negative int in 7 bit groups, least significant first, e.g. squares below 128 take one byte.
+   */
+  void writeVarint(int value) {
+    ensureCapacity(5);
+    while ((value & ~0x7f) != 0) {
+      bytes[length++] = (byte) (value & 0x7f | 0x80);
+      value >>>= 7;
+    }
+    bytes[length++] = (byte) value;
+  }
+
+  void writeShort(int value) {
+    ensureCapacity(2);
+    bytes[length++] = (byte) (value >>> 8);
+    bytes[length++] = (byte) value;
+  }
+
+  void writeInt(int value) {
+    ensureCapacity(4);
+    bytes[length++] = (byte) (value >>> 24);
+    bytes[length++] = (byte) (value >>> 16);
+    bytes[length++] = (byte) (value >>> 8);
+    bytes[length++] = (byte) value;
+  }
+
+  void writeLong(long value) {
+    writeInt((int) (value >>> 32));
+    writeInt((int) value);
+  }
+
+  void write(ByteSink other) {
+    ensureCapacity(other.length);
+    System.arraycopy(other.bytes, 0, bytes, length, other.length);
+    length += other.length;
+  }
+
+  /**
+   * Drops all bytes from `length` on.
+   */
+  void truncate(int length) {
+    this.length = length;
+  }
+
+  byte[] toByteArray() {
+    return Arrays.copyOf(bytes, length);
+  }
+
+  private void ensureCapacity(int extra) {
+    if (length + extra > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+  }
+}
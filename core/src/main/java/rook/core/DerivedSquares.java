@@ -0,0 +1,57 @@
+package rook.core;
+
+import react.AbstractValue;
+
+import java.util.BitSet;
+import java.util.function.Consumer;
+
+/**
+ * A set of squares that a {@link GameState} derives from its other values. A change of those only marks it dirty,
+ * it is computed again when read, and its listeners are notified once per update of the game state. The BitSet is
+ * updated in place, so listeners must not hold on to it.
+ */
+final class DerivedSquares extends AbstractValue<BitSet> {
+
+  /**
+   * Adds the squares to an empty BitSet
+   */
+  private final Consumer<BitSet> compute;
+  private final BitSet squares = new BitSet();
+  private boolean dirty = true;
+  private boolean changed;
+
+  DerivedSquares(Consumer<BitSet> compute) {
+    this.compute = compute;
+  }
+
+  @Override
+  public BitSet get() {
+    if (dirty) {
+      squares.clear();
+      compute.accept(squares);
+      dirty = false;
+    }
+    return squares;
+  }
+
+  void invalidate() {
+    dirty = true;
+    changed = true;
+  }
+
+  /**
+   * Notifies the listeners if the squares were invalidated since the last call. They are only computed if there are
+   * listeners.
+   */
+  void notifyIfChanged() {
+    if (!changed) return;
+    changed = false;
+    if (hasConnections()) notifyChange(get(), null);
+  }
+
+  @Override
+  protected BitSet updateLocal(BitSet value) {
+    // Derived values are never set from outside, the squares are computed in place
+    return squares;
+  }
+}
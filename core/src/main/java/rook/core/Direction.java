@@ -53,7 +53,7 @@ public enum Direction {
   public abstract int x();
   public abstract int y();
 
-  static Direction fromVector(int offX, int offY) {
+  public static Direction fromVector(int offX, int offY) {
     if (offY < 0) {
       // UP_...
       if (offX > 0) return UP_RIGHT;
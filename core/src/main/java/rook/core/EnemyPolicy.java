@@ -0,0 +1,41 @@
+package rook.core;
+
+import java.util.BitSet;
+
+/**
+ * Decides how the enemies move, see {@link Engine#setEnemyPolicy}.
+ */
+public interface EnemyPolicy {
+
+  /**
+   * Plans the enemy move of the next turn by calling {@link Engine#addIntention} for every enemy piece that should
+   * move. The intentions of the previous turn have already been cleared.
+   */
+  void planIntentions(Engine engine);
+
+  /**
+   * Every enemy makes its strongest threat against the player pieces, the same way in the same position.
+   */
+  static EnemyPolicy greedy() {
+    return new GreedyPolicy();
+  }
+
+  /**
+   * Every enemy takes the player king if it can and otherwise moves to a random square.
+   */
+  static EnemyPolicy random() {
+    BitSet moves = new BitSet();
+    return engine -> {
+      Position position = engine.position;
+      int king = GreedyPolicy.findPlayerKing(position);
+      for (int index = 0; index < position.size(); index++) {
+        if (position.side(index) != Piece.Side.ENEMY) continue;
+        moves.clear();
+        engine.enemyMoves(index, moves);
+        int dest = king >= 0 && moves.get(king) ? king : -1;
+        if (dest < 0) dest = BitSetUtils.randomElement(engine.random(), moves).orElse(-1);
+        if (dest >= 0) engine.addIntention(index, dest);
+      }
+    };
+  }
+}
@@ -0,0 +1,290 @@
+package rook.core;
+
+import com.google.common.collect.ImmutableList;
+import de.cdietze.playn_util.PointUtils;
+import pythagoras.i.IDimension;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Optional;
+import java.util.Random;
+
+import static de.cdietze.playn_util.PointUtils.*;
+
+/**
+ * The game rules. Applies player moves, push chains and enemy intentions to a {@link Position}.
+ * <p>
+ * The engine does not depend on a {@link playn.core.Platform} or on react, so it can run headless, e.g. in tests
+ * and simulations. {@link GameState} adapts it for the UI.
+ */
+public class Engine {
+
+  public interface Listener {
+    void onPieceMoved(PieceMovedEvent event);
+  }
+
+  private static final Listener NO_LISTENER = event -> {};
+
+  /**
+   * Enemies are blocked by nothing. Never modified.
+   */
+  static final BitSet BLOCKED_FOR_ENEMY = new BitSet();
+
+  public final Position position;
+  private final IDimension dim;
+  private final Random random;
+  private Listener listener = NO_LISTENER;
+  private EnemyPolicy enemyPolicy = EnemyPolicy.random();
+  private Metrics metrics = Metrics.NONE;
+
+  /*
+   * Scratch sets, so that searching and simulating moves does not allocate
+   */
+  private final BitSet moves = new BitSet();
+  private final BitSet neighbors = new BitSet();
+  /**
+   * The squares of the pieces pushed by the current move, see {@link #findPushChain}
+   */
+  private int[] pushChain = new int[8];
+
+  public Engine(Position position, Random random) {
+    this.position = position;
+    this.dim = position.dim;
+    this.random = random;
+  }
+
+  public void setListener(Listener listener) {
+    this.listener = listener != null ? listener : NO_LISTENER;
+  }
+
+  /**
+   * Sets how the enemies plan their moves, {@link EnemyPolicy#random()} by default.
+   */
+  public void setEnemyPolicy(EnemyPolicy enemyPolicy) {
+    this.enemyPolicy = enemyPolicy;
+  }
+
+  public void setMetrics(Metrics metrics) {
+    this.metrics = metrics != null ? metrics : Metrics.NONE;
+  }
+
+  Metrics metrics() {
+    return metrics;
+  }
+
+  public Random random() {
+    return random;
+  }
+
+  /**
+   * Player pieces cannot move into the fog.
+   */
+  public BitSet blockedSquaresForPlayer() {
+    return position.fog();
+  }
+
+  /**
+   * Adds a piece with a new id during setup, player pieces reveal their surroundings.
+   *
+   * @returns the index of the new piece.
+   */
+  public int addPiece(Piece.Side side, Piece.Type type, int pos) {
+    return addPiece(new Piece(position.nextPieceId(), side, type, pos));
+  }
+
+  /**
+   * Adds a piece during setup, player pieces reveal their surroundings.
+   *
+   * @returns the index of the new piece.
+   */
+  public int addPiece(Piece piece) {
+    int index = position.addPiece(piece.id, piece.side, piece.type, piece.pos);
+    if (piece.side == Piece.Side.PLAYER) revealBorderingSquares(piece.pos);
+    return index;
+  }
+
+  public enum Outcome {
+    RUNNING,
+    WON,
+    LOST,
+  }
+
+  /**
+   * The player loses when their king is gone and wins when all enemies are gone.
+   */
+  public Outcome outcome() {
+    boolean hasKing = false;
+    for (int index = 0; index < position.size() && !hasKing; index++) {
+      hasKing = position.side(index) == Piece.Side.PLAYER && position.type(index) == Piece.Type.KING;
+    }
+    if (!hasKing) return Outcome.LOST;
+    if (position.count(Piece.Side.ENEMY) == 0) return Outcome.WON;
+    return Outcome.RUNNING;
+  }
+
+  /**
+   * @returns all legal destinations of the player piece at `index`.
+   */
+  public BitSet playerMoves(int index, BitSet result) {
+    metrics.count(Metrics.Counter.MOVE_GENERATIONS, 1);
+    return PieceMoves.moves(dim, position.type(index), position.square(index), blockedSquaresForPlayer(), position.occupied(), result);
+  }
+
+  /**
+   * Moves the player piece at `index` to `dest` if that is a legal move. Then the enemies execute their
+   * intentions and plan their next move.
+   *
+   * @returns whether the move was legal.
+   */
+  public boolean tryPlayerMove(int index, int dest) {
+    if (!playTurn(index, dest)) return false;
+    makeIntentions();
+    return true;
+  }
+
+  /**
+   * Like {@link #tryPlayerMove} for a move that is known to be legal, e.g. from a cache of the player moves.
+   */
+  void playLegalMove(int index, int dest) {
+    playLegalTurn(index, dest);
+    makeIntentions();
+  }
+
+  /**
+   * Like {@link #tryPlayerMove} but leaves the executed intentions in place instead of planning the next move,
+   * e.g. for searching ahead.
+   */
+  public boolean playTurn(int index, int dest) {
+    moves.clear();
+    if (!playerMoves(index, moves).get(dest)) return false;
+    playLegalTurn(index, dest);
+    return true;
+  }
+
+  private void playLegalTurn(int index, int dest) {
+    movePiece(index, dest);
+    moveEnemyPieces();
+  }
+
+  private void movePiece(int index, int dest) {
+    int pos = position.square(index);
+    int dx = Integer.signum(toX(dim, dest) - toX(dim, pos));
+    int dy = Integer.signum(toY(dim, dest) - toY(dim, pos));
+    int chainLength = findPushChain(dest, dx, dy);
+    if (chainLength > 0) {
+      metrics.count(Metrics.Counter.PUSH_CHAINS, 1);
+      metrics.count(Metrics.Counter.PUSHED_PIECES, chainLength);
+    }
+    // Events are only for the UI, searches and simulations run without a listener and do not allocate
+    PieceMovedEvent movedEvent = listener != NO_LISTENER ? movedEvent(index, dest, dx, dy, chainLength) : null;
+    // Start at the far end of a push chain so that every piece moves onto a vacated square
+    int step = dx + dim.width() * dy;
+    for (int i = chainLength - 1; i >= 0; i--) {
+      int square = pushChain[i];
+      int pushedIndex = position.indexAt(square);
+      if (i == chainLength - 1 && !contains(dim, toX(dim, square) + dx, toY(dim, square) + dy)) {
+        position.removePiece(pushedIndex);
+      } else {
+        placePiece(pushedIndex, square + step);
+      }
+    }
+    // Removing a piece shifts the indices, the mover has not moved yet
+    placePiece(position.indexAt(pos), dest);
+    if (movedEvent != null) listener.onPieceMoved(movedEvent);
+  }
+
+  /**
+   * Scans from `dest` in direction (`dx`, `dy`) for the pieces pushed by a piece moving onto `dest`. The pushed
+   * may become the pusher, so the chain ends at the first empty square or the border.
+   *
+   * @returns the length of the chain, its squares are in {@link #pushChain} starting at `dest`.
+   */
+  private int findPushChain(int dest, int dx, int dy) {
+    BitSet occupied = position.occupied();
+    int x = toX(dim, dest);
+    int y = toY(dim, dest);
+    int step = dx + dim.width() * dy;
+    int length = 0;
+    for (int square = dest; contains(dim, x, y) && occupied.get(square); square += step, x += dx, y += dy) {
+      if (length == pushChain.length) pushChain = Arrays.copyOf(pushChain, length * 2);
+      pushChain[length++] = square;
+    }
+    return length;
+  }
+
+  /**
+   * Describes the move of the piece at `index` to `dest` before it is applied.
+   */
+  private PieceMovedEvent movedEvent(int index, int dest, int dx, int dy, int chainLength) {
+    Direction dir = Direction.fromVector(dx, dy);
+    ImmutableList.Builder<ConsequenceEvent> consequences = ImmutableList.builder();
+    for (int i = 0; i < chainLength; i++) {
+      int square = pushChain[i];
+      Piece piece = position.piece(position.indexAt(square));
+      consequences.add(contains(dim, toX(dim, square) + dx, toY(dim, square) + dy)
+              ? new PiecePushedEvent(piece, dir, square)
+              : new PiecePushedOverBoard(piece, dir));
+    }
+    return new PieceMovedEvent(position.piece(index).copy().pos(dest).build(),
+            position.square(index),
+            consequences.build(),
+            Optional.empty());
+  }
+
+  private void placePiece(int index, int square) {
+    position.movePiece(index, square);
+    if (position.side(index) == Piece.Side.PLAYER) revealBorderingSquares(square);
+  }
+
+  /**
+   * Executes the planned enemy intentions.
+   */
+  void moveEnemyPieces() {
+    long start = metrics != Metrics.NONE ? System.nanoTime() : 0L;
+    for (int i = 0; i < position.intentionCount(); i++) {
+      int pieceIndex = position.indexOf(position.intentionPieceId(i));
+      if (pieceIndex < 0) continue;
+      int dest = PieceMoves.slideInDir(dim, position.square(pieceIndex), position.intentionDir(i),
+              BLOCKED_FOR_ENEMY, position.playerSquares(), position.intentionLength(i));
+      if (position.square(pieceIndex) != dest) movePiece(pieceIndex, dest);
+    }
+    if (metrics != Metrics.NONE) metrics.time(Metrics.Timer.ENEMY_MOVES, System.nanoTime() - start);
+  }
+
+  /**
+   * Makes the enemy intentions for the next move.
+   */
+  void makeIntentions() {
+    position.clearIntentions();
+    enemyPolicy.planIntentions(this);
+    metrics.count(Metrics.Counter.INTENTION_RECALCULATIONS, position.intentionCount());
+    position.intentionsChanged();
+  }
+
+  /**
+   * @returns all destinations of the enemy piece at `index`.
+   */
+  public BitSet enemyMoves(int index, BitSet result) {
+    metrics.count(Metrics.Counter.MOVE_GENERATIONS, 1);
+    return PieceMoves.moves(dim, position.type(index), position.square(index), BLOCKED_FOR_ENEMY, position.playerSquares(), result);
+  }
+
+  /**
+   * Plans to move the enemy piece at `index` to `dest` with the next turn.
+   */
+  public void addIntention(int index, int dest) {
+    int pos = position.square(index);
+    int vecX = toX(dim, dest) - toX(dim, pos);
+    int vecY = toY(dim, dest) - toY(dim, pos);
+    int moveLength = Math.max(Math.abs(vecX), Math.abs(vecY));
+    position.addIntention(position.id(index), Direction.fromVector(vecX, vecY), moveLength);
+  }
+
+  private void revealBorderingSquares(int pos) {
+    if (position.fog().isEmpty()) return;
+    neighbors.clear();
+    PointUtils.borderingNeighbors(dim, pos, neighbors);
+    neighbors.set(pos);
+    position.reveal(neighbors);
+  }
+}
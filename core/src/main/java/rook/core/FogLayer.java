@@ -0,0 +1,127 @@
+package rook.core;
+
+import playn.core.Canvas;
+import playn.core.Color;
+import playn.core.GL20;
+import playn.core.Graphics;
+import playn.core.Surface;
+import playn.core.Texture;
+import playn.scene.Layer;
+import pythagoras.i.IDimension;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static de.cdietze.playn_util.PointUtils.toX;
+import static de.cdietze.playn_util.PointUtils.toY;
+
+/**
+ * Renders the fog of war of the whole board as a single layer: a texture with one pixel per square, black where the
+ * fog is, and the squares that are still fading out painted on top of it in the same pass.
+ * <p>
+ * Only the changed squares are drawn into the texture's canvas and it is uploaded at most once per frame, so the
+ * scene graph and the draw calls stay the same for any board size.
+ */
+class FogLayer extends Layer {
+
+  private static final float FADE_MILLIS = 500f;
+
+  private final IDimension dim;
+  private final Canvas canvas;
+  private Texture texture;
+  private boolean dirty = true;
+
+  private int fadeCount;
+  private int[] fadeSquares = new int[16];
+  private float[] fadeMillis = new float[16];
+
+  FogLayer(Graphics gfx, IDimension dim, BitSet fog) {
+    this.dim = dim;
+    this.canvas = gfx.createCanvas(dim.width(), dim.height());
+    canvas.setFillColor(Color.argb(255, 0, 0, 0));
+    for (int square = fog.nextSetBit(0); square >= 0; square = fog.nextSetBit(square + 1)) {
+      canvas.fillRect(toX(dim, square), toY(dim, square), 1, 1);
+    }
+  }
+
+  @Override
+  public float width() { return dim.width(); }
+  @Override
+  public float height() { return dim.height(); }
+
+  /**
+   * Removes `squares` from the fog, they fade out.
+   */
+  void reveal(BitSet squares) {
+    for (int square = squares.nextSetBit(0); square >= 0; square = squares.nextSetBit(square + 1)) {
+      canvas.clearRect(toX(dim, square), toY(dim, square), 1, 1);
+      if (fadeCount == fadeSquares.length) {
+        fadeSquares = Arrays.copyOf(fadeSquares, fadeCount * 2);
+        fadeMillis = Arrays.copyOf(fadeMillis, fadeCount * 2);
+      }
+      fadeSquares[fadeCount] = square;
+      fadeMillis[fadeCount++] = 0f;
+    }
+    dirty = true;
+  }
+
+  /**
+   * Covers `squares` with fog again right away.
+   */
+  void addFog(BitSet squares) {
+    for (int square = squares.nextSetBit(0); square >= 0; square = squares.nextSetBit(square + 1)) {
+      canvas.fillRect(toX(dim, square), toY(dim, square), 1, 1);
+    }
+    removeFades(squares);
+    dirty = true;
+  }
+
+  /**
+   * Advances the fades by `dt` milliseconds.
+   */
+  void update(int dt) {
+    int count = 0;
+    for (int i = 0; i < fadeCount; i++) {
+      float millis = fadeMillis[i] + dt;
+      if (millis >= FADE_MILLIS) continue;
+      fadeSquares[count] = fadeSquares[i];
+      fadeMillis[count++] = millis;
+    }
+    fadeCount = count;
+  }
+
+  private void removeFades(BitSet squares) {
+    int count = 0;
+    for (int i = 0; i < fadeCount; i++) {
+      if (squares.get(fadeSquares[i])) continue;
+      fadeSquares[count] = fadeSquares[i];
+      fadeMillis[count++] = fadeMillis[i];
+    }
+    fadeCount = count;
+  }
+
+  @Override
+  protected void paintImpl(Surface surf) {
+    if (dirty) {
+      // Nearest filtering keeps the squares sharp when scaled up
+      if (texture == null) texture = canvas.toTexture(Texture.Config.UNMANAGED.filter(GL20.GL_NEAREST, GL20.GL_NEAREST));
+      else texture.update(canvas.image);
+      dirty = false;
+    }
+    surf.draw(texture, 0, 0, dim.width(), dim.height());
+    for (int i = 0; i < fadeCount; i++) {
+      // Ease out like the animators do
+      float t = fadeMillis[i] / FADE_MILLIS;
+      float alpha = 1f - (1f - (1f - t) * (1f - t));
+      surf.setFillColor(Color.argb((int) (alpha * 255), 0, 0, 0))
+              .fillRect(toX(dim, fadeSquares[i]), toY(dim, fadeSquares[i]), 1, 1);
+    }
+  }
+
+  @Override
+  public void close() {
+    super.close();
+    if (texture != null) texture.close();
+    canvas.close();
+  }
+}
@@ -0,0 +1,108 @@
+package rook.core;
+
+import playn.core.Font;
+import playn.core.Platform;
+import react.Connection;
+import tripleplay.ui.Group;
+import tripleplay.ui.Label;
+import tripleplay.ui.Style;
+import tripleplay.ui.layout.AxisLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * An overlay with percentiles of the update and paint times, the layer counts of the {@link Board} and, where the
+ * platform can count it, the allocation rate of the game thread. It only listens to the frames while shown, so it
+ * costs nothing when hidden.
+ */
+class FrameHud {
+
+  private static final int WINDOW = 120;
+  private static final int REFRESH_MILLIS = 500;
+
+  private final Platform plat;
+  private final MainGame game;
+  private final Board board;
+  private final LongSupplier allocatedBytes;
+
+  final Group group = new Group(AxisLayout.vertical())
+          .addStyles(Style.FONT.is(new Font("Helvetica", 12)), Style.HALIGN.is(Style.HAlign.LEFT));
+  private final Label updateLabel = new Label();
+  private final Label paintLabel = new Label();
+  private final Label layersLabel = new Label();
+  private final Label allocationLabel = new Label();
+
+  private final FrameStats updateStats = new FrameStats(WINDOW);
+  private final FrameStats paintStats = new FrameStats(WINDOW);
+  private final List<Connection> connections = new ArrayList<>();
+  private double updateStart;
+  private double paintStart;
+  private double lastRefresh;
+  private long lastAllocatedBytes;
+
+  FrameHud(MainGame game, Board board, LongSupplier allocatedBytes) {
+    this.plat = game.plat;
+    this.game = game;
+    this.board = board;
+    this.allocatedBytes = allocatedBytes;
+    group.add(updateLabel, paintLabel, layersLabel);
+    if (allocatedBytes != null) group.add(allocationLabel);
+  }
+
+  boolean isShown() { return !connections.isEmpty(); }
+
+  /**
+   * Starts measuring, the labels fill in after the first refresh.
+   */
+  void show() {
+    if (isShown()) return;
+    // Bracket all other listeners, the scene is painted by one of the paint listeners
+    connections.add(game.update.connect(clock -> updateStart = plat.time()).atPrio(Integer.MAX_VALUE));
+    connections.add(game.update.connect(clock -> updateStats.add((float) (plat.time() - updateStart)))
+            .atPrio(Integer.MIN_VALUE));
+    connections.add(game.paint.connect(clock -> paintStart = plat.time()).atPrio(Integer.MAX_VALUE));
+    connections.add(game.paint.connect(clock -> {
+      double now = plat.time();
+      paintStats.add((float) (now - paintStart));
+      if (now - lastRefresh >= REFRESH_MILLIS) refresh(now);
+    }).atPrio(Integer.MIN_VALUE));
+    lastRefresh = plat.time();
+    if (allocatedBytes != null) lastAllocatedBytes = allocatedBytes.getAsLong();
+  }
+
+  void hide() {
+    connections.forEach(Connection::close);
+    connections.clear();
+  }
+
+  private void refresh(double now) {
+    updateLabel.text.update(describe("update", updateStats));
+    paintLabel.text.update(describe("paint", paintStats));
+    layersLabel.text.update("layers: squares " + board.layerCount(Board.Depths.SQUARES)
+            + ", pieces " + board.layerCount(Board.Depths.PIECES)
+            + ", fog " + board.layerCount(Board.Depths.FOG_OF_WAR)
+            + ", intentions " + board.layerCount(Board.Depths.INTENTIONS));
+    if (allocatedBytes != null) {
+      long bytes = allocatedBytes.getAsLong();
+      double kbPerSecond = (bytes - lastAllocatedBytes) / 1024d / ((now - lastRefresh) / 1000d);
+      allocationLabel.text.update("alloc: " + Math.round(kbPerSecond) + " KB/s");
+      lastAllocatedBytes = bytes;
+    }
+    lastRefresh = now;
+  }
+
+  private static String describe(String name, FrameStats stats) {
+    return name + " ms: p50 " + format(stats.percentile(.5f)) + ", p95 " + format(stats.percentile(.95f))
+            + ", max " + format(stats.percentile(1f));
+  }
+
+  /**
+   * Formats with one decimal, String.format is not available in GWT.
+   */
+  private static String format(float millis) {
+    int tenths = Math.round(millis * 10);
+    return tenths / 10 + "." + tenths % 10;
+  }
+}
@@ -0,0 +1,37 @@
+package rook.core;
+
+import java.util.Arrays;
+
+/**
+ * The last samples of a frame time, e.g. the update or paint time, for the {@link FrameHud}.
+ */
+final class FrameStats {
+
+  private final float[] samples;
+  private final float[] sorted;
+  private int count;
+  private int next;
+
+  FrameStats(int window) {
+    this.samples = new float[window];
+    this.sorted = new float[window];
+  }
+
+  void add(float millis) {
+    samples[next] = millis;
+    next = (next + 1) % samples.length;
+    count = Math.min(count + 1, samples.length);
+  }
+
+  int count() { return count; }
+
+  /**
+   * @returns the smallest sample that is at least as large as `fraction` of the samples, or 0 without samples.
+   */
+  float percentile(float fraction) {
+    if (count == 0) return 0f;
+    System.arraycopy(samples, 0, sorted, 0, count);
+    Arrays.sort(sorted, 0, count);
+    return sorted[Math.max(0, (int) Math.ceil(fraction * count) - 1)];
+  }
+}
@@ -2,9 +2,7 @@ package rook.core;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterables;
 import com.google.errorprone.annotations.Immutable;
-import de.cdietze.playn_util.PointUtils;
 import playn.core.Log;
 import pythagoras.i.Dimension;
 import pythagoras.i.IDimension;
@@ -12,49 +10,131 @@ import pythagoras.i.IRectangle;
 import pythagoras.i.Rectangle;
 import react.*;
 
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Optional;
-import java.util.OptionalInt;
-import java.util.Random;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkState;
 import static de.cdietze.playn_util.PointUtils.*;
 
+/**
+ * Reactive view of a game for the UI. The rules run in the {@link Engine} on a plain {@link Position}, this class
+ * mirrors every change of that position into react values and signals.
+ */
 public class GameState {
 
-  private final Random random;
   private final Log log;
 
-  public final IDimension dim = new Dimension(8, 8);
-  public final IRectangle rect = new Rectangle(dim);
+  public final Position position;
+  private final Engine engine;
+  private final PlayerMoveCache playerMoves;
+  private final Rng random;
 
+  public final IDimension dim;
+  public final IRectangle rect;
+
+  /**
+   * Mirrors the pieces of the position. Use {@link #addPiece} to add pieces, the list must not be modified
+   * directly.
+   */
   public final RList<Piece> pieces = RList.create();
 
-  public final RSet<Integer> fogSquares = RSet.create();
+  /**
+   * The fogged squares. The BitSet is updated in place, so listeners must not hold on to it.
+   */
+  public final Value<BitSet> fog;
+
+  /**
+   * Emitted once per reveal with all squares revealed together, e.g. around a moved player piece. {@link #fog} already
+   * contains the reveal, its listeners are notified at the end of the move. The BitSet is reused, so listeners must
+   * not hold on to it.
+   */
+  public final Signal<BitSet> fogRevealed = Signal.create();
+
+  /**
+   * Emitted when undoing a turn brings back fog, with the fogged squares. The BitSet is reused, so listeners must not
+   * hold on to it.
+   */
+  public final Signal<BitSet> fogAdded = Signal.create();
 
   public final Signal<PieceMovedEvent> pieceMoved = Signal.create();
 
-  public final Value<BitSet> playerPieceSquares = Value.create(calcPlayerPieceSquares(new BitSet()));
-  public final Value<BitSet> enemyPieceSquares = Value.create(calcEnemyPieceSquares(new BitSet()));
+  /**
+   * Emitted after {@link #undoLastTurn} restored the position. The undone moves are not replayed through
+   * {@link #pieceMoved}, views should resync with {@link #pieces} instead.
+   */
+  public final UnitSignal turnUndone = new UnitSignal();
+
+  /**
+   * Position marks taken before each player move, the last one on top
+   */
+  private int[] turnMarks = new int[16];
+  private int turnCount;
+
+  private JournalWriter journal;
+
+  /**
+   * The squares occupied by player pieces. The BitSet is updated in place, so listeners must not hold on to it.
+   */
+  public final Value<BitSet> playerPieceSquares;
+  /**
+   * The squares occupied by enemy pieces. The BitSet is updated in place, so listeners must not hold on to it.
+   */
+  public final Value<BitSet> enemyPieceSquares;
+
+  /*
+   * Update state, see beginUpdate
+   */
+  private int updateDepth;
+  private boolean fogChanged;
+  private boolean playerSquaresChanged;
+  private boolean enemySquaresChanged;
+
+  private void sideSquaresChanged(Piece.Side side) {
+    if (side == Piece.Side.PLAYER) playerSquaresChanged = true;
+    else enemySquaresChanged = true;
+    derivedPieceSquares.invalidate();
+    if (updateDepth == 0) flush();
+  }
+
+  private void fogChanged() {
+    fogChanged = true;
+    derivedBlockedSquares.invalidate();
+    if (updateDepth == 0) flush();
+  }
 
-  private void updatePiecesBitSets() {
-    playerPieceSquares.update(calcPlayerPieceSquares(new BitSet()));
-    enemyPieceSquares.update(calcEnemyPieceSquares(new BitSet()));
+  /**
+   * Starts an update of the position, until the matching {@link #endUpdate} the values only notify their listeners
+   * once per move, see {@link #flush}. Updates nest.
+   */
+  private void beginUpdate() {
+    updateDepth++;
   }
 
-  private BitSet calcPlayerPieceSquares(BitSet result) {
-    pieces.stream().filter(p -> p.side == Piece.Side.PLAYER).forEach(p -> result.set(p.pos));
-    // System.out.println("calcPlayerPieceSquares, result:" + result);
-    return result;
+  private void endUpdate() {
+    if (--updateDepth == 0) flush();
   }
 
-  private BitSet calcEnemyPieceSquares(BitSet result) {
-    pieces.stream().filter(p -> p.side == Piece.Side.ENEMY).forEach(p -> result.set(p.pos));
-    // System.out.println("calcEnemyPieceSquares, result:" + result);
-    return result;
+  /**
+   * Notifies the listeners of the values that changed since the last flush, each value once, e.g. at the end of a
+   * move. Until then the values already return the current squares, but listeners do not see the steps in between.
+   */
+  private void flush() {
+    if (fogChanged) {
+      fogChanged = false;
+      fog.updateForce(position.fog());
+    }
+    if (playerSquaresChanged) {
+      playerSquaresChanged = false;
+      playerPieceSquares.updateForce(position.playerSquares());
+    }
+    if (enemySquaresChanged) {
+      enemySquaresChanged = false;
+      enemyPieceSquares.updateForce(position.enemySquares());
+    }
+    derivedBlockedSquares.notifyIfChanged();
+    derivedPieceSquares.notifyIfChanged();
   }
 
   public final Stream<Piece> playerPieces() {
@@ -63,7 +143,10 @@ public class GameState {
   public final Stream<Piece> enemyPieces() {
     return pieces.stream().filter(p -> p.side == Piece.Side.ENEMY);
   }
-  public final Optional<Piece> pieceAtPos(int pos) { return pieces.stream().filter(p -> p.pos == pos).findFirst();}
+  public final Optional<Piece> pieceAtPos(int pos) {
+    int index = pieceIndexByPos(pos);
+    return index >= 0 ? Optional.of(pieces.get(index)) : Optional.empty();
+  }
 
   /**
    * List of the enemy intentions for the next move.
@@ -71,100 +154,181 @@ public class GameState {
    */
   public final RList<MoveIntention> moveIntentions = RList.create();
 
-  public GameState(Random random, Log log, boolean fog) {
-    this.random = random;
+  public GameState(Rng random, Log log, boolean fog) {
+    this(random, log, new Dimension(8, 8), fog);
+  }
+
+  public GameState(Rng random, Log log, IDimension dim, boolean fog) {
     this.log = log;
-    if (fog) fogSquares.addAll(IntStream.range(0, dim.width() * dim.height()).boxed().collect(Collectors.toList()));
-    initRevealFogListener();
-    initUpdatePiecesBitSetsListener();
+    this.random = random;
+    this.position = new Position(dim, fog);
+    this.engine = new Engine(position, random);
+    this.playerMoves = new PlayerMoveCache(engine);
+    this.dim = position.dim;
+    this.rect = new Rectangle(dim);
+    this.playerPieceSquares = Value.create(position.playerSquares());
+    this.enemyPieceSquares = Value.create(position.enemySquares());
+    this.fog = Value.create(position.fog());
+    // Only the fog blocks the player
+    this.derivedBlockedSquares = new DerivedSquares(this::calcBlockedSquaresForPlayer);
+    this.blockedSquaresForPlayer = derivedBlockedSquares;
+    this.derivedPieceSquares = new DerivedSquares(this::calcPieceSquares);
+    this.pieceSquares = derivedPieceSquares;
+    initPositionListener();
   }
 
-  private void initRevealFogListener() {
-    pieces.connectNotify(new RList.Listener<Piece>() {
+  private void initPositionListener() {
+    position.setListener(new Position.Listener() {
       @Override
-      public void onAdd(Piece piece) {
-        if (piece.side == Piece.Side.PLAYER) {
-          revealBorderingSquares(piece.pos);
-        }
+      public void onPieceAdded(int index) {
+        playerMoves.squareChanged(position.square(index));
+        pieces.add(index, position.piece(index));
+        sideSquaresChanged(position.side(index));
       }
-
       @Override
-      public void onSet(int index, Piece piece) {
-        if (piece.side == Piece.Side.PLAYER) {
-          revealBorderingSquares(piece.pos);
-        }
+      public void onPieceMoved(int index, int oldSquare) {
+        playerMoves.squareChanged(oldSquare);
+        playerMoves.squareChanged(position.square(index));
+        pieces.set(index, position.piece(index));
+        sideSquaresChanged(position.side(index));
       }
-    });
-  }
-
-  private void initUpdatePiecesBitSetsListener() {
-    // TODO: optimization: could only update pieces or enemy bitset depending on which piece moved
-    pieces.connectNotify(new RList.Listener<Piece>() {
       @Override
-      public void onAdd(Piece piece) {
-        updatePiecesBitSets();
+      public void onPieceRemoved(int index, Piece piece) {
+        playerMoves.squareChanged(piece.pos);
+        pieces.remove(index);
+        sideSquaresChanged(piece.side);
       }
       @Override
-      public void onRemove(Piece piece) {
-        updatePiecesBitSets();
+      public void onFogRevealed(BitSet squares) {
+        playerMoves.squaresChanged(squares);
+        fogChanged();
+        fogRevealed.emit(squares);
       }
       @Override
-      public void onSet(int index, Piece newElem) {
-        updatePiecesBitSets();
+      public void onFogAdded(BitSet squares) {
+        playerMoves.squaresChanged(squares);
+        fogChanged();
+        fogAdded.emit(squares);
       }
-    });
-  }
-
-  public final ValueView<BitSet> blockedSquaresForPlayer;
-
-  {
-    Value<BitSet> result = Value.create(new BitSet());
-    fogSquares.connect(new RSet.Listener<Integer>() {
       @Override
-      public void onAdd(Integer elem) {
-        result.update(calcBlockedSquaresForPlayer(new BitSet()));
+      public void onIntentionsChanged() {
+        moveIntentions.clear();
+        for (int i = 0; i < position.intentionCount(); i++) {
+          moveIntentions.add(position.intention(i));
+        }
       }
       @Override
-      public void onRemove(Integer elem) {
-        result.update(calcBlockedSquaresForPlayer(new BitSet()));
+      public void onReset() {
+        // Update the squares and the values derived from them once at the end instead of for every piece
+        beginUpdate();
+        playerMoves.clear();
+        pieces.clear();
+        for (int index = 0; index < position.size(); index++) {
+          pieces.add(position.piece(index));
+        }
+        fogChanged();
+        sideSquaresChanged(Piece.Side.PLAYER);
+        sideSquaresChanged(Piece.Side.ENEMY);
+        endUpdate();
+        onIntentionsChanged();
       }
     });
-    playerPieceSquares.connect(x -> result.update(calcBlockedSquaresForPlayer(new BitSet())));
-    enemyPieceSquares.connect(x -> result.update(calcBlockedSquaresForPlayer(new BitSet())));
-    result.update(calcBlockedSquaresForPlayer(new BitSet()));
-    blockedSquaresForPlayer = result;
+    engine.setListener(event -> {
+      // The move is complete, listeners see its changes at once
+      flush();
+      if (journal != null) journal.onPieceMoved(event);
+      pieceMoved.emit(event);
+    });
   }
 
-  private BitSet calcBlockedSquaresForPlayer(BitSet result) {
-    fogSquares.forEach(result::set);
-    // System.out.println("calcBlockedSquaresForPlayer, result:" + result + ", fog: " + fogSquares + ", playerPieceSquares:" + playerPieceSquares.get() + ", enemyPieceSquares:" + enemyPieceSquares.get());
-    return result;
+  /**
+   * The squares the player cannot move to. The BitSet is updated in place, so listeners must not hold on to it.
+   */
+  public final ValueView<BitSet> blockedSquaresForPlayer;
+  private final DerivedSquares derivedBlockedSquares;
+
+  private void calcBlockedSquaresForPlayer(BitSet result) {
+    engine.metrics().count(Metrics.Counter.DERIVED_RECOMPUTATIONS, 1);
+    result.or(engine.blockedSquaresForPlayer());
   }
 
+  /**
+   * The squares occupied by any piece. The BitSet is updated in place, so listeners must not hold on to it.
+   */
   public final ValueView<BitSet> pieceSquares;
-
-  {
-    Value<BitSet> result = Value.create(new BitSet());
-    playerPieceSquares.connect(x -> result.update(calcPieceSquares(new BitSet())));
-    enemyPieceSquares.connect(x -> result.update(calcPieceSquares(new BitSet())));
-    result.update(calcPieceSquares(new BitSet()));
-    pieceSquares = result;
-  }
+  private final DerivedSquares derivedPieceSquares;
 
   /**
-   * Enemies are blocked by nothing
+   * Enemies are blocked by nothing. A copy of its own, so that listeners cannot change what the engine uses.
    */
   public final ValueView<BitSet> blockedSquaresForEnemy = Value.create(new BitSet());
 
-  private BitSet calcPieceSquares(BitSet result) {
+  private void calcPieceSquares(BitSet result) {
+    engine.metrics().count(Metrics.Counter.DERIVED_RECOMPUTATIONS, 1);
     result.or(playerPieceSquares.get());
     result.or(enemyPieceSquares.get());
-    // System.out.println("calcPieceSquares, result:" + result + ", playerPieceSquares:" + playerPieceSquares.get() + ", enemyPieceSquares:" + enemyPieceSquares.get());
-    return result;
+  }
+
+  public void setEnemyPolicy(EnemyPolicy enemyPolicy) {
+    engine.setEnemyPolicy(enemyPolicy);
+  }
+
+  public void setMetrics(Metrics metrics) {
+    engine.setMetrics(metrics);
+  }
+
+  Metrics metrics() {
+    return engine.metrics();
+  }
+
+  /**
+   * Adds a piece with a new id to the position, e.g. while setting up a level.
+   */
+  public void addPiece(Piece.Side side, Piece.Type type, int pos) {
+    beginUpdate();
+    try {
+      engine.addPiece(side, type, pos);
+    } finally {
+      endUpdate();
+    }
+  }
+
+  /**
+   * Records all following turns into `journal`, which must have been started with the current position, or stops
+   * recording if it is null.
+   */
+  public void setJournal(JournalWriter journal) {
+    this.journal = journal;
+  }
+
+  /**
+   * Replaces the position, e.g. with one from a {@link JournalReader}. The turns so far can no longer be undone.
+   * Views should be created after restoring, pieces that are not in `source` are removed from {@link #pieces}
+   * without a {@link #pieceMoved} event. The journal no longer matches the position and stops recording, see
+   * {@link #setJournal} to start a new one.
+   */
+  public void restore(Position source) {
+    journal = null;
+    position.set(source);
+    turnCount = 0;
+  }
+
+  /**
+   * @returns a {@link Snapshot} of the position and the random state.
+   */
+  public byte[] snapshot() {
+    return Snapshot.write(position, random);
+  }
+
+  /**
+   * Restores a {@link #snapshot()} like {@link #restore(Position)}, including the random state.
+   */
+  public void restore(byte[] snapshot) {
+    restore(Snapshot.read(snapshot, random));
   }
 
   public int pieceIndexById(final int pieceId) {
-    return Iterables.indexOf(pieces, piece -> piece.id == pieceId);
+    return position.indexOf(pieceId);
   }
 
   public Piece pieceById(final int pieceId) {
@@ -172,124 +336,55 @@ public class GameState {
   }
 
   public int pieceIndexByPos(final int pos) {
-    return Iterables.indexOf(pieces, piece -> piece.pos == pos);
+    return position.indexAt(pos);
   }
 
-  public boolean tryMoveSelectedPiece(Piece piece, int dest) {
-    BitSet moves = PieceMoves.moves(dim, piece.type, piece.pos, blockedSquaresForPlayer.get(), pieceSquares.get(), new BitSet());
-    if (moves.get(dest)) {
-      int pieceIndex = pieces.indexOf(piece);
-      checkState(pieceIndex >= 0);
-      int posX = toX(dim, piece.pos);
-      int posY = toY(dim, piece.pos);
-      int destX = toX(dim, dest);
-      int destY = toY(dim, dest);
-      Direction dir = Direction.fromVector(destX - posX, destY - posY);
-      ImmutableList<ConsequenceEvent> pushedEvents = calcPushList(destX, destY, dir, ImmutableList.builder()).build();
-      Piece newPiece = piece.copy().pos(dest).build();
-      PieceMovedEvent movedEvent = new PieceMovedEvent(newPiece, piece.pos, pushedEvents, Optional.empty());
-      applyPieceMovedEvent(movedEvent);
-      pieceMoved.emit(movedEvent);
-      moveEnemyPieces();
-      return true;
-    } else {
-      return false;
-    }
+  /**
+   * @returns the legal destinations of the player piece with `pieceId`, e.g. to highlight them. They are cached until
+   * a change on the piece's rays, so asking again is free. The BitSet must not be modified.
+   */
+  public BitSet playerMoves(int pieceId) {
+    return playerMoves.moves(pieceId);
   }
 
-  private void applyPieceMovedEvent(PieceMovedEvent movedEvent) {
-    movedEvent.capture.ifPresent(piece -> pieces.remove(pieceIndexById(piece.id)));
-    movedEvent.consequences.forEach(e -> {
-      if (e instanceof PiecePushedEvent) {
-        PiecePushedEvent e2 = (PiecePushedEvent) e;
-        Piece pushedPiece = e2.piece.copy().pos(e2.destIndex(dim)).build();
-        pieces.set(pieceIndexById(e2.piece.id), pushedPiece);
-      } else if (e instanceof PiecePushedOverBoard) {
-        PiecePushedOverBoard e2 = (PiecePushedOverBoard) e;
-        pieces.remove(pieceIndexById(e2.piece.id));
-      }
-    });
-    pieces.set(pieceIndexById(movedEvent.piece.id), movedEvent.piece);
-  }
-
-  private ImmutableList.Builder<ConsequenceEvent> calcPushList(int pushedX, int pushedY, Direction dir, ImmutableList.Builder<ConsequenceEvent> result) {
-    if (!contains(dim, pushedX, pushedY)) return result;
-    int pushedPos = toIndex(dim, pushedX, pushedY);
-    Optional<Piece> piece = pieceAtPos(pushedPos);
-    if (!piece.isPresent()) return result;
-    int destX = pushedX + dir.x();
-    int destY = pushedY + dir.y();
-    result.add(contains(dim, destX, destY)
-            ? new PiecePushedEvent(piece.get(), dir, pushedPos)
-            : new PiecePushedOverBoard(piece.get(), dir));
-    // The pushed may become the pusher
-    calcPushList(destX, destY, dir, result);
-    return result;
-  }
-
-  private void moveEnemyPieces() {
-    // Execute planned intentions
-    moveIntentions.forEach((intention) -> {
-      int pieceIndex = pieceIndexById(intention.pieceId);
-      if (pieceIndex < 0) return;
-      Piece piece = pieces.get(pieceIndex);
-      int dest = intention.calcDest(this).get();
-      if (piece.pos != dest) {
-        int posX = toX(dim, piece.pos);
-        int posY = toY(dim, piece.pos);
-        int destX = toX(dim, dest);
-        int destY = toY(dim, dest);
-        Direction dir = Direction.fromVector(destX - posX, destY - posY);
-        int pieceAtDestIndex = pieceIndexByPos(dest);
-//        Optional<Piece> capture = (pieceAtDestIndex >= 0 && pieces.get(pieceAtDestIndex).side == Piece.Side.PLAYER)
-//                ? Optional.of(pieces.get(pieceAtDestIndex))
-//                : Optional.empty();
-        Optional<Piece> capture = Optional.empty();
-        ImmutableList<ConsequenceEvent> pushedEvents = capture.isPresent()
-                ? ImmutableList.of()
-                : calcPushList(destX, destY, dir, ImmutableList.builder()).build();
-        PieceMovedEvent movedEvent = new PieceMovedEvent(piece.copy().pos(dest).build(),
-                piece.pos,
-                pushedEvents,
-                capture);
-        applyPieceMovedEvent(movedEvent);
-        pieceMoved.emit(movedEvent);
-      }
-    });
-
-    // Make intentions for next move
-    moveIntentions.clear();
-    enemyPieces().forEach(piece -> {
-      OptionalInt moveDest = pickEnemyMove(piece);
-      if (moveDest.isPresent()) {
-        int x = toX(dim, piece.pos);
-        int y = toY(dim, piece.pos);
-        int destX = toX(dim, moveDest.getAsInt());
-        int destY = toY(dim, moveDest.getAsInt());
-        int vecX = destX - x;
-        int vecY = destY - y;
-        int moveLength = Math.max(Math.abs(vecX), Math.abs(vecY));
-        Direction dir = Direction.fromVector(destX - x, destY - y);
-        moveIntentions.add(new MoveIntention(piece.id, dir, moveLength));
-      }
-    });
+  public boolean tryMoveSelectedPiece(Piece piece, int dest) {
+    int pieceIndex = pieceIndexById(piece.id);
+    checkState(pieceIndex >= 0);
+    if (piece.side != Piece.Side.PLAYER || !playerMoves(piece.id).get(dest)) return false;
+    Metrics metrics = engine.metrics();
+    long start = metrics != Metrics.NONE ? System.nanoTime() : 0L;
+    int mark = position.mark();
+    beginUpdate();
+    try {
+      engine.playLegalMove(pieceIndex, dest);
+    } finally {
+      endUpdate();
+    }
+    if (metrics != Metrics.NONE) metrics.time(Metrics.Timer.PLAYER_MOVE, System.nanoTime() - start);
+    if (turnCount == turnMarks.length) turnMarks = Arrays.copyOf(turnMarks, turnCount * 2);
+    turnMarks[turnCount++] = mark;
+    if (journal != null) journal.endTurn(position);
     log.debug("Made intentions for next move: " + moveIntentions);
+    return true;
   }
 
-  private OptionalInt pickEnemyMove(Piece piece) {
-    BitSet moves = PieceMoves.moves(dim, piece.type, piece.pos, blockedSquaresForEnemy.get(), playerPieceSquares.get(), new BitSet());
-    OptionalInt playerKing = BitSetUtils.findFirst(moves, i -> {
-      Optional<Piece> t = pieceAtPos(i);
-      return t.isPresent() && t.get().side == Piece.Side.PLAYER && t.get().type == Piece.Type.KING;
-    });
-    if (playerKing.isPresent()) return playerKing;
-    return BitSetUtils.randomElement(random, moves);
-  }
-
-  private void revealBorderingSquares(int pos) {
-    fogSquares.remove(pos);
-    BitSet set = PointUtils.borderingNeighbors(dim, pos, new BitSet());
-    BitSetUtils.forEach(set, fogSquares::remove);
+  /**
+   * Takes back the last player move together with the enemy moves that followed it.
+   *
+   * @returns false if there is no move to take back.
+   */
+  public boolean undoLastTurn() {
+    if (turnCount == 0) return false;
+    beginUpdate();
+    try {
+      position.undo(turnMarks[--turnCount]);
+    } finally {
+      endUpdate();
+    }
+    if (journal != null) journal.undoTurn();
+    log.debug("Undid turn, intentions: " + moveIntentions);
+    turnUndone.emit();
+    return true;
   }
 }
 
@@ -0,0 +1,92 @@
+package rook.core;
+
+import pythagoras.i.IDimension;
+
+import java.util.BitSet;
+
+import static de.cdietze.playn_util.PointUtils.*;
+
+/**
+ * Every enemy makes its strongest threat: it aims to push the most valuable player piece over the board, otherwise
+ * it closes in on the player king. Deterministic, see {@link EnemyPolicy#greedy()}.
+ */
+final class GreedyPolicy implements EnemyPolicy {
+
+  static final int PIECE_VALUE = 1000;
+  static final int KING_VALUE = 1_000_000;
+
+  private final BitSet moves = new BitSet();
+
+  @Override
+  public void planIntentions(Engine engine) {
+    Position position = engine.position;
+    int king = findPlayerKing(position);
+    if (king < 0) return;
+    for (int index = 0; index < position.size(); index++) {
+      if (position.side(index) != Piece.Side.ENEMY) continue;
+      int dest = move(engine, index, king);
+      if (dest >= 0) engine.addIntention(index, dest);
+    }
+  }
+
+  /**
+   * @returns the greedy destination of the enemy at `index` or -1 if it should stay.
+   */
+  int move(Engine engine, int index, int king) {
+    Position position = engine.position;
+    moves.clear();
+    engine.enemyMoves(index, moves);
+    int pos = position.square(index);
+    int best = -1;
+    int bestScore = -10 * distance(position.dim, pos, king);
+    for (int dest = moves.nextSetBit(0); dest >= 0; dest = moves.nextSetBit(dest + 1)) {
+      int score = pushScore(position, pos, dest) - 10 * distance(position.dim, dest, king);
+      if (score > bestScore) {
+        best = dest;
+        bestScore = score;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * @returns the value for the enemies of the piece a move from `pos` to `dest` pushes over the board, if the
+   * player does not react.
+   */
+  static int pushScore(Position position, int pos, int dest) {
+    if (!position.occupied().get(dest)) return 0;
+    IDimension dim = position.dim;
+    Direction dir = Direction.fromVector(toX(dim, dest) - toX(dim, pos), toY(dim, dest) - toY(dim, pos));
+    // Follow the push chain to its last piece
+    int x = toX(dim, dest);
+    int y = toY(dim, dest);
+    int last;
+    do {
+      last = position.indexAt(toIndex(dim, x, y));
+      x += dir.x();
+      y += dir.y();
+    } while (contains(dim, x, y) && position.occupied().get(toIndex(dim, x, y)));
+    if (contains(dim, x, y)) return 0;
+    if (position.side(last) == Piece.Side.ENEMY) return -PIECE_VALUE;
+    return position.type(last) == Piece.Type.KING ? KING_VALUE : PIECE_VALUE;
+  }
+
+  /**
+   * @returns the square of the player king or -1 if it is gone.
+   */
+  static int findPlayerKing(Position position) {
+    for (int index = 0; index < position.size(); index++) {
+      if (position.side(index) == Piece.Side.PLAYER && position.type(index) == Piece.Type.KING) {
+        return position.square(index);
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @returns the number of king moves between two squares.
+   */
+  static int distance(IDimension dim, int a, int b) {
+    return Math.max(Math.abs(toX(dim, a) - toX(dim, b)), Math.abs(toY(dim, a) - toY(dim, b)));
+  }
+}
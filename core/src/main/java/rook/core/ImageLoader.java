@@ -2,9 +2,26 @@ package rook.core;
 
 import playn.core.Image;
 import playn.core.Platform;
+import playn.core.Tile;
+import react.RFuture;
+import react.Value;
+import react.ValueView;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class ImageLoader {
 
+  /**
+   * The piece images packed into one texture by rook.sim.AtlasMain, a row per {@link Piece.Side} and a column per
+   * {@link Piece.Type}
+   */
+  public static final String PIECE_ATLAS = "images/cburnett/pieces.png";
+  /**
+   * The width and height of a piece in the atlas
+   */
+  public static final int PIECE_SIZE = 200;
+
   public static Images loadImages(Platform plat) {
     return new ImageLoader(plat).new Images();
   }
@@ -14,37 +31,48 @@ public class ImageLoader {
   }
 
   public class Images {
-    public final Image whiteBishop = plat.assets().getImage("images/cburnett/wB.png");
-    public final Image whiteKing = plat.assets().getImage("images/cburnett/wK.png");
-    public final Image whiteRook = plat.assets().getImage("images/cburnett/wR.png");
-
-    public final Image blackBishop = plat.assets().getImage("images/cburnett/bB.png");
-    public final Image blackKing = plat.assets().getImage("images/cburnett/bK.png");
-    public final Image blackRook = plat.assets().getImage("images/cburnett/bR.png");
-
-    public final Image pieceImage(Piece.Side side, Piece.Type type) {
-      switch (side) {
-        case PLAYER:
-          switch (type) {
-            case BISHOP:
-              return whiteBishop;
-            case KING:
-              return whiteKing;
-            case ROOK:
-              return whiteRook;
-          }
-          break;
-        case ENEMY:
-          switch (type) {
-            case BISHOP:
-              return blackBishop;
-            case KING:
-              return blackKing;
-            case ROOK:
-              return blackRook;
-          }
+    public final Image pieceAtlas = plat.assets().getImage(PIECE_ATLAS);
+
+    private final Tile[] pieceTiles = new Tile[Piece.Side.values().length * Piece.Type.values().length];
+
+    private final Value<Float> progress = Value.create(0f);
+
+    /**
+     * Completes once all images are loaded and can be drawn without popping in.
+     */
+    public final RFuture<Images> ready = preload(pieceAtlas);
+
+    private Images() {
+      for (Piece.Side side : Piece.Side.values()) {
+        for (Piece.Type type : Piece.Type.values()) {
+          // Regions of the atlas share its texture, so the pieces are drawn without switching textures
+          pieceTiles[tileIndex(side, type)] = pieceAtlas.region(
+                  type.ordinal() * PIECE_SIZE, side.ordinal() * PIECE_SIZE, PIECE_SIZE, PIECE_SIZE);
+        }
+      }
+    }
+
+    /**
+     * @returns the fraction of the images that are loaded, from 0 to 1.
+     */
+    public ValueView<Float> progress() { return progress; }
+
+    public final Tile pieceTile(Piece.Side side, Piece.Type type) {
+      return pieceTiles[tileIndex(side, type)];
+    }
+
+    private int tileIndex(Piece.Side side, Piece.Type type) {
+      return side.ordinal() * Piece.Type.values().length + type.ordinal();
+    }
+
+    private RFuture<Images> preload(Image... images) {
+      List<RFuture<Image>> states = new ArrayList<>();
+      int[] loaded = {0};
+      for (Image image : images) {
+        image.state.onSuccess(i -> progress.update(++loaded[0] / (float) images.length));
+        states.add(image.state);
       }
-      throw new RuntimeException("No image found for piece, side: " + side + ", type: " + type);
+      return RFuture.sequence(states).map(list -> this);
     }
   }
 }
@@ -0,0 +1,42 @@
+package rook.core;
+
+import playn.core.Surface;
+import playn.scene.Layer;
+import pythagoras.i.IDimension;
+import tripleplay.util.Colors;
+
+import static de.cdietze.playn_util.PointUtils.toX;
+import static de.cdietze.playn_util.PointUtils.toY;
+
+/**
+ * Draws the lines of all enemy intentions in a single layer, see {@link IntentionPaths#lines()}.
+ */
+class IntentionLayer extends Layer {
+
+  private static final int COLOR = Colors.darker(Colors.RED);
+
+  private final IDimension dim;
+  private int[] lines = new int[0];
+
+  IntentionLayer(IDimension dim) {
+    this.dim = dim;
+  }
+
+  @Override
+  public float width() { return dim.width(); }
+  @Override
+  public float height() { return dim.height(); }
+
+  void setLines(int[] lines) {
+    this.lines = lines;
+  }
+
+  @Override
+  protected void paintImpl(Surface surf) {
+    surf.setFillColor(COLOR);
+    for (int i = 0; i < lines.length; i += 2) {
+      surf.drawLine(toX(dim, lines[i]) + .5f, toY(dim, lines[i]) + .5f,
+              toX(dim, lines[i + 1]) + .5f, toY(dim, lines[i + 1]) + .5f, 0.1f);
+    }
+  }
+}
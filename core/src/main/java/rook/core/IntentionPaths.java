@@ -0,0 +1,141 @@
+package rook.core;
+
+import react.RList;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Follows the enemy intentions of a {@link GameState} and the squares they lead from and to. When pieces move only
+ * the intentions whose path crosses one of the changed squares are recalculated, see {@link #update()}.
+ */
+final class IntentionPaths {
+
+  private final GameState state;
+  private final Position position;
+  /**
+   * The squares whose pieces changed since the last update
+   */
+  private final BitSet changedSquares = new BitSet();
+  private int count;
+  private MoveIntention[] intentions = new MoveIntention[16];
+  /**
+   * The square of the intention's piece or -1 if it is gone
+   */
+  private int[] from = new int[16];
+  private int[] dest = new int[16];
+  private boolean changed;
+
+  IntentionPaths(GameState state) {
+    this.state = state;
+    this.position = state.position;
+    state.moveIntentions.connectNotify(new RList.Listener<MoveIntention>() {
+      @Override
+      public void onAdd(int index, MoveIntention intention) {
+        add(index, intention);
+      }
+      @Override
+      public void onRemove(int index, MoveIntention intention) {
+        remove(index);
+      }
+    });
+    state.pieces.connect(new RList.Listener<Piece>() {
+      @Override
+      public void onAdd(Piece piece) {
+        changedSquares.set(piece.pos);
+      }
+      @Override
+      public void onSet(int index, Piece newPiece, Piece oldPiece) {
+        changedSquares.set(oldPiece.pos);
+        changedSquares.set(newPiece.pos);
+      }
+      @Override
+      public void onRemove(Piece piece) {
+        changedSquares.set(piece.pos);
+      }
+    });
+  }
+
+  int count() { return count; }
+  int from(int i) { return from[i]; }
+  int dest(int i) { return dest[i]; }
+
+  /**
+   * Recalculates the intentions whose path from their piece to their destination crosses a square that changed since
+   * the last update. Anything beyond the destination cannot change it, the slide stops there.
+   *
+   * @returns whether any intention changed since the last update.
+   */
+  boolean update() {
+    if (!changedSquares.isEmpty()) {
+      for (int i = 0; i < count; i++) {
+        if (crosses(i, changedSquares)) changed |= calculate(i);
+      }
+      changedSquares.clear();
+    }
+    boolean result = changed;
+    changed = false;
+    return result;
+  }
+
+  /**
+   * @returns the from and dest squares of the intentions whose piece is still there, in pairs.
+   */
+  int[] lines() {
+    int[] result = new int[count * 2];
+    int length = 0;
+    for (int i = 0; i < count; i++) {
+      if (from[i] < 0) continue;
+      result[length++] = from[i];
+      result[length++] = dest[i];
+    }
+    return Arrays.copyOf(result, length);
+  }
+
+  private boolean crosses(int i, BitSet squares) {
+    if (from[i] < 0) return false;
+    int stride = PieceMoves.stride(position.dim, intentions[i].dir);
+    for (int square = from[i]; ; square += stride) {
+      if (squares.get(square)) return true;
+      if (square == dest[i]) return false;
+    }
+  }
+
+  /**
+   * @returns whether the squares of the intention changed.
+   */
+  private boolean calculate(int i) {
+    state.metrics().count(Metrics.Counter.INTENTION_RECALCULATIONS, 1);
+    int index = position.indexOf(intentions[i].pieceId);
+    int newFrom = index >= 0 ? position.square(index) : -1;
+    int newDest = intentions[i].calcDestSquare(position);
+    boolean result = newFrom != from[i] || newDest != dest[i];
+    from[i] = newFrom;
+    dest[i] = newDest;
+    return result;
+  }
+
+  private void add(int index, MoveIntention intention) {
+    if (count == intentions.length) {
+      intentions = Arrays.copyOf(intentions, count * 2);
+      from = Arrays.copyOf(from, count * 2);
+      dest = Arrays.copyOf(dest, count * 2);
+    }
+    System.arraycopy(intentions, index, intentions, index + 1, count - index);
+    System.arraycopy(from, index, from, index + 1, count - index);
+    System.arraycopy(dest, index, dest, index + 1, count - index);
+    count++;
+    intentions[index] = intention;
+    from[index] = -1;
+    calculate(index);
+    changed = true;
+  }
+
+  private void remove(int index) {
+    System.arraycopy(intentions, index + 1, intentions, index, count - index - 1);
+    System.arraycopy(from, index + 1, from, index, count - index - 1);
+    System.arraycopy(dest, index + 1, dest, index, count - index - 1);
+    intentions[--count] = null;
+    changed = true;
+  }
+}
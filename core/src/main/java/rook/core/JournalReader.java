@@ -0,0 +1,211 @@
+package rook.core;
+
+import pythagoras.i.Dimension;
+import pythagoras.i.IDimension;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Reads a journal written by a {@link JournalWriter}. Opening a journal only scans the record headers to index the
+ * turns, {@link #seek} then restores a position from the closest keyframe before the turn and replays the turns
+ * after it. A journal cut off in the middle of a record, e.g. by a crash, ends with the last complete record.
+ */
+public class JournalReader {
+
+  /**
+   * The bytes of a journal, e.g. a byte array or a memory mapped file.
+   */
+  public interface Input {
+    int length();
+    byte get(int offset);
+  }
+
+  private static final Piece.Side[] SIDES = Piece.Side.values();
+  private static final Piece.Type[] TYPES = Piece.Type.values();
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private final Input input;
+  public final IDimension dim;
+  public final int keyframeInterval;
+
+  /**
+   * The payload offset of each turn's record, turn 1 first
+   */
+  private int[] turnOffsets = new int[64];
+  private int turnCount;
+  private int[] keyframeTurns = new int[8];
+  private int[] keyframeOffsets = new int[8];
+  private int keyframeCount;
+
+  /**
+   * Read position
+   */
+  private int offset;
+
+  public static JournalReader of(byte[] bytes) {
+    return new JournalReader(new Input() {
+      @Override
+      public int length() { return bytes.length; }
+      @Override
+      public byte get(int offset) { return bytes[offset]; }
+    });
+  }
+
+  public JournalReader(Input input) {
+    this.input = input;
+    if (input.length() < 4 || readInt() != JournalWriter.MAGIC) throw new IllegalArgumentException("not a journal");
+    this.dim = new Dimension(readVarint(), readVarint());
+    this.keyframeInterval = readVarint();
+    indexRecords();
+    if (keyframeCount == 0) throw new IllegalArgumentException("journal without keyframe");
+  }
+
+  private void indexRecords() {
+    while (offset < input.length()) {
+      int tag = input.get(offset++);
+      int length;
+      try {
+        length = readVarint();
+      } catch (IndexOutOfBoundsException e) {
+        return;
+      }
+      int payload = offset;
+      if (payload + length > input.length()) return;
+      int turn = readVarint();
+      switch (tag) {
+        case JournalWriter.TAG_KEYFRAME:
+          if (keyframeCount == keyframeTurns.length) {
+            keyframeTurns = Arrays.copyOf(keyframeTurns, keyframeCount * 2);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframeCount * 2);
+          }
+          keyframeTurns[keyframeCount] = turn;
+          keyframeOffsets[keyframeCount++] = payload;
+          break;
+        case JournalWriter.TAG_TURN:
+          if (turn != turnCount + 1) throw new IllegalArgumentException("expected turn " + (turnCount + 1) + ": " + turn);
+          if (turnCount == turnOffsets.length) turnOffsets = Arrays.copyOf(turnOffsets, turnCount * 2);
+          turnOffsets[turnCount++] = payload;
+          break;
+        default:
+          throw new IllegalArgumentException("unknown record tag: " + tag);
+      }
+      offset = payload + length;
+    }
+  }
+
+  /**
+   * @returns the number of recorded turns.
+   */
+  public int turnCount() { return turnCount; }
+
+  /**
+   * @returns a new position as it was after `turn`, 0 being the set up level.
+   */
+  public Position seek(int turn) {
+    if (turn < 0 || turn > turnCount) throw new IndexOutOfBoundsException("turn " + turn + " of " + turnCount);
+    int keyframe = Arrays.binarySearch(keyframeTurns, 0, keyframeCount, turn);
+    if (keyframe < 0) keyframe = -keyframe - 2;
+    Position position = readKeyframe(keyframeOffsets[keyframe]);
+    // The enemy moves of a turn follow from the intentions before it, so only the player moves are replayed
+    Engine engine = new Engine(position, new Random(0));
+    for (int t = keyframeTurns[keyframe] + 1; t <= turn; t++) {
+      offset = turnOffsets[t - 1];
+      readVarint();
+      int moveCount = readVarint();
+      if (moveCount == 0) throw new IllegalStateException("turn " + t + " without player move");
+      int pieceId = readVarint();
+      readVarint();
+      int dest = readVarint();
+      readVarint();
+      for (int i = 1; i < moveCount; i++) {
+        for (int j = 0; j < 4; j++) {
+          readVarint();
+        }
+      }
+      if (!engine.playTurn(position.indexOf(pieceId), dest)) {
+        throw new IllegalStateException("illegal move in turn " + t + ": " + pieceId + "->" + dest);
+      }
+      readIntentions(position);
+    }
+    position.clearHistory();
+    return position;
+  }
+
+  /**
+   * @returns the moves of `turn` as text, the player move first, e.g. `3:12->20 7:40->32+1`. A + marks pushes, a !
+   * a piece pushed over the board.
+   */
+  public String describeTurn(int turn) {
+    if (turn < 1 || turn > turnCount) throw new IndexOutOfBoundsException("turn " + turn + " of " + turnCount);
+    offset = turnOffsets[turn - 1];
+    readVarint();
+    int moveCount = readVarint();
+    StringBuilder result = new StringBuilder();
+    for (int i = 0; i < moveCount; i++) {
+      if (i > 0) result.append(' ');
+      result.append(readVarint()).append(':').append(readVarint()).append("->").append(readVarint());
+      int pushes = readVarint();
+      if (pushes >> 1 > 0) result.append('+').append(pushes >> 1);
+      if ((pushes & 1) != 0) result.append('!');
+    }
+    return result.toString();
+  }
+
+  private Position readKeyframe(int payload) {
+    offset = payload;
+    readVarint();
+    int nextPieceId = readVarint();
+    int size = readVarint();
+    int[] pieces = new int[size * 3];
+    for (int i = 0; i < pieces.length; i += 3) {
+      pieces[i] = readVarint();
+      pieces[i + 1] = input.get(offset++);
+      pieces[i + 2] = readVarint();
+    }
+    int runCount = readVarint();
+    // A fogged position starts out all fog, the clear runs are revealed
+    Position position = new Position(dim, runCount > 1);
+    for (int i = 0; i < pieces.length; i += 3) {
+      position.addPiece(pieces[i], SIDES[pieces[i + 1] >> 4], TYPES[pieces[i + 1] & 0xf], pieces[i + 2]);
+    }
+    position.setNextPieceId(nextPieceId);
+    BitSet clear = new BitSet();
+    int square = 0;
+    for (int run = 0; run < runCount; run++) {
+      int end = square + readVarint();
+      if (run % 2 == 0) clear.set(square, end);
+      square = end;
+    }
+    position.reveal(clear);
+    readIntentions(position);
+    return position;
+  }
+
+  private void readIntentions(Position position) {
+    position.clearIntentions();
+    int count = readVarint();
+    for (int i = 0; i < count; i++) {
+      position.addIntention(readVarint(), DIRECTIONS[input.get(offset++)], readVarint());
+    }
+    position.intentionsChanged();
+  }
+
+  private int readVarint() {
+    int result = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = input.get(offset++);
+      result |= (b & 0x7f) << shift;
+      if (b >= 0) return result;
+    }
+  }
+
+  private int readInt() {
+    int result = 0;
+    for (int i = 0; i < 4; i++) {
+      result = result << 8 | input.get(offset++) & 0xff;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,168 @@
+package rook.core;
+
+import java.util.Arrays;
+
+/**
+ * Records a game turn by turn into a compact binary journal, e.g. to attach to crash reports or to inspect long
+ * playtests. Connect it as the {@link Engine.Listener} and call {@link #endTurn} after every player move,
+ * {@link GameState#setJournal} does both. A {@link JournalReader} restores the position after any turn.
+ * <p>
+ * All numbers are varints unless noted otherwise. The journal starts with the int {@link #MAGIC}, the board width and
+ * height and the keyframe interval, followed by records of a tag byte, the payload length and the payload:
+ * <ul>
+ *   <li>{@link #TAG_KEYFRAME}: the turn, the next piece id, the pieces as id, side << 4 | type byte and square, the
+ *   fog as alternating runs of clear and fogged squares starting with clear, and the intentions.</li>
+ *   <li>{@link #TAG_TURN}: the turn, the moves of the turn as piece id, old square, new square and the number of
+ *   pushed pieces << 1 | 1 if the last one went over the board, and the intentions for the next turn. The player's
+ *   move comes first.</li>
+ * </ul>
+ * Intentions are written as their count followed by piece id, direction byte and length. Turn 0 is the keyframe of
+ * the set up level, another keyframe follows every `keyframeInterval` turns, so seeking replays at most that many
+ * turns.
+ */
+public class JournalWriter implements Engine.Listener {
+
+  /**
+   * "RKJ1"
+   */
+  static final int MAGIC = 0x524b4a31;
+  static final int TAG_KEYFRAME = 1;
+  static final int TAG_TURN = 2;
+
+  public static final int DEFAULT_KEYFRAME_INTERVAL = 32;
+
+  private final int keyframeInterval;
+  private final ByteSink bytes = new ByteSink(1024);
+  private final ByteSink record = new ByteSink(256);
+  private int turn;
+  /**
+   * The journal length before each turn's record, to take turns back
+   */
+  private int[] turnStarts = new int[64];
+
+  /**
+   * The moves of the current turn, 4 ints each
+   */
+  private int[] moves = new int[16];
+  private int moveCount;
+
+  /**
+   * Starts a journal with the keyframe of `position`, usually the freshly set up level.
+   */
+  public JournalWriter(Position position) {
+    this(position, DEFAULT_KEYFRAME_INTERVAL);
+  }
+
+  public JournalWriter(Position position, int keyframeInterval) {
+    this.keyframeInterval = keyframeInterval;
+    bytes.writeInt(MAGIC);
+    bytes.writeVarint(position.dim.width());
+    bytes.writeVarint(position.dim.height());
+    bytes.writeVarint(keyframeInterval);
+    writeKeyframe(position);
+  }
+
+  /**
+   * @returns the number of recorded turns.
+   */
+  public int turn() { return turn; }
+
+  public int length() { return bytes.length(); }
+
+  public byte[] toByteArray() {
+    return bytes.toByteArray();
+  }
+
+  @Override
+  public void onPieceMoved(PieceMovedEvent event) {
+    if (moveCount * 4 == moves.length) moves = Arrays.copyOf(moves, moves.length * 2);
+    int pushes = event.consequences.size();
+    boolean overBoard = pushes > 0 && event.consequences.get(pushes - 1) instanceof PiecePushedOverBoard;
+    moves[moveCount * 4] = event.piece.id;
+    moves[moveCount * 4 + 1] = event.oldPos;
+    moves[moveCount * 4 + 2] = event.piece.pos;
+    moves[moveCount * 4 + 3] = pushes << 1 | (overBoard ? 1 : 0);
+    moveCount++;
+  }
+
+  /**
+   * Writes the moves since the last call and the new intentions of `position` as the next turn.
+   */
+  public void endTurn(Position position) {
+    if (turn == turnStarts.length) turnStarts = Arrays.copyOf(turnStarts, turn * 2);
+    turnStarts[turn++] = bytes.length();
+    record.truncate(0);
+    record.writeVarint(turn);
+    record.writeVarint(moveCount);
+    for (int i = 0; i < moveCount * 4; i++) {
+      record.writeVarint(moves[i]);
+    }
+    moveCount = 0;
+    writeIntentions(position);
+    writeRecord(TAG_TURN);
+    if (turn % keyframeInterval == 0) writeKeyframe(position);
+  }
+
+  /**
+   * Drops the last turn together with a keyframe written after it, e.g. when the player takes the turn back.
+   */
+  public void undoTurn() {
+    if (turn == 0) return;
+    bytes.truncate(turnStarts[--turn]);
+    moveCount = 0;
+  }
+
+  private void writeKeyframe(Position position) {
+    record.truncate(0);
+    record.writeVarint(turn);
+    record.writeVarint(position.nextPieceId());
+    record.writeVarint(position.size());
+    for (int index = 0; index < position.size(); index++) {
+      record.writeVarint(position.id(index));
+      record.writeByte(position.side(index).ordinal() << 4 | position.type(index).ordinal());
+      record.writeVarint(position.square(index));
+    }
+    writeFog(position);
+    writeIntentions(position);
+    writeRecord(TAG_KEYFRAME);
+  }
+
+  private void writeFog(Position position) {
+    int squareCount = position.squareCount();
+    int runCount = 0;
+    for (int square = 0; square < squareCount; runCount++) {
+      square = runCount % 2 == 0 ? nextFog(position, square) : nextClear(position, square);
+    }
+    record.writeVarint(runCount);
+    int square = 0;
+    for (int run = 0; run < runCount; run++) {
+      int end = run % 2 == 0 ? nextFog(position, square) : nextClear(position, square);
+      record.writeVarint(end - square);
+      square = end;
+    }
+  }
+
+  private static int nextFog(Position position, int square) {
+    int result = position.fog().nextSetBit(square);
+    return result >= 0 ? result : position.squareCount();
+  }
+
+  private static int nextClear(Position position, int square) {
+    return Math.min(position.fog().nextClearBit(square), position.squareCount());
+  }
+
+  private void writeIntentions(Position position) {
+    record.writeVarint(position.intentionCount());
+    for (int i = 0; i < position.intentionCount(); i++) {
+      record.writeVarint(position.intentionPieceId(i));
+      record.writeByte(position.intentionDir(i).ordinal());
+      record.writeVarint(position.intentionLength(i));
+    }
+  }
+
+  private void writeRecord(int tag) {
+    bytes.writeByte(tag);
+    bytes.writeVarint(record.length());
+    bytes.write(record);
+  }
+}
@@ -0,0 +1,62 @@
+package rook.core;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.annotations.Immutable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A level as data, e.g. made by the {@link LevelGenerator}. The text form lists the pieces by side, type and square,
+ * e.g. `PK27 PR3 EB12`.
+ */
+@Immutable
+public final class Level {
+
+  /**
+   * The pieces in setup order, their ids are not used
+   */
+  public final ImmutableList<Piece> pieces;
+
+  public Level(ImmutableList<Piece> pieces) {
+    this.pieces = pieces;
+  }
+
+  public void setup(Levels.Setup setup) {
+    for (Piece piece : pieces) {
+      setup.addPiece(piece.side, piece.type, piece.pos);
+    }
+  }
+
+  public static Level parse(String text) {
+    ImmutableList.Builder<Piece> pieces = ImmutableList.builder();
+    for (String token : text.trim().split("\\s+")) {
+      checkArgument(token.length() >= 3, "invalid piece: %s", token);
+      pieces.add(new Piece(-1, side(token.charAt(0)), type(token.charAt(1)), Integer.parseInt(token.substring(2))));
+    }
+    return new Level(pieces.build());
+  }
+
+  private static Piece.Side side(char c) {
+    for (Piece.Side side : Piece.Side.values()) {
+      if (side.name().charAt(0) == c) return side;
+    }
+    throw new IllegalArgumentException("unknown side: " + c);
+  }
+
+  private static Piece.Type type(char c) {
+    for (Piece.Type type : Piece.Type.values()) {
+      if (type.name().charAt(0) == c) return type;
+    }
+    throw new IllegalArgumentException("unknown type: " + c);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+    for (Piece piece : pieces) {
+      if (result.length() > 0) result.append(' ');
+      result.append(piece.side.name().charAt(0)).append(piece.type.name().charAt(0)).append(piece.pos);
+    }
+    return result.toString();
+  }
+}
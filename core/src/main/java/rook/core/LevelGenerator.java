@@ -0,0 +1,121 @@
+package rook.core;
+
+import com.google.common.collect.ImmutableList;
+import pythagoras.i.Dimension;
+import pythagoras.i.IDimension;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static de.cdietze.playn_util.PointUtils.*;
+
+/**
+ * Samples random piece layouts and keeps those the {@link PuzzleSolver} can win in a given number of moves against
+ * {@link EnemyPolicy#greedy()} enemies. A generator reuses its solver and is not thread safe, use one per thread.
+ */
+public class LevelGenerator {
+
+  public static class Config {
+    public IDimension dim = new Dimension(8, 8);
+    public boolean fog = false;
+    /**
+     * Player pieces besides the king, rooks or bishops
+     */
+    public int playerPieces = 2;
+    public int minEnemies = 2;
+    public int maxEnemies = 4;
+    /**
+     * The shortest win of a level takes at least minMoves and at most maxMoves player moves
+     */
+    public int minMoves = 3;
+    public int maxMoves = 5;
+    public int maxNodes = 50_000;
+  }
+
+  public static final class Result {
+    public final Level level;
+    public final PuzzleSolver.Solution solution;
+
+    Result(Level level, PuzzleSolver.Solution solution) {
+      this.level = level;
+      this.solution = solution;
+    }
+  }
+
+  private static final Piece.Type[] PLAYER_TYPES = {Piece.Type.ROOK, Piece.Type.BISHOP};
+  private static final Piece.Type[] ENEMY_TYPES = Piece.Type.values();
+
+  private final Config config;
+  private final PuzzleSolver solver;
+  private final BitSet taken = new BitSet();
+  private int candidates;
+
+  public LevelGenerator(Config config) {
+    this.config = config;
+    this.solver = new PuzzleSolver(EnemyPolicy.greedy(), config.maxNodes);
+  }
+
+  /**
+   * @returns the number of layouts sampled so far.
+   */
+  public int candidates() { return candidates; }
+
+  /**
+   * Samples layouts until one passes.
+   */
+  public Result generate(Random random) {
+    Result result;
+    do {
+      result = tryGenerate(random);
+    } while (result == null);
+    return result;
+  }
+
+  /**
+   * Samples one layout.
+   *
+   * @returns the level or null if it does not pass.
+   */
+  public Result tryGenerate(Random random) {
+    candidates++;
+    Level level = sample(random);
+    Position position = new Position(config.dim, config.fog);
+    Engine engine = new Engine(position, random);
+    level.setup(engine::addPiece);
+    // The transposition table is only a cache, clearing it keeps the outcome independent of earlier candidates
+    // when the node budget runs out
+    solver.clear();
+    PuzzleSolver.Solution solution = solver.solve(position, config.maxMoves);
+    if (solution.status != PuzzleSolver.Status.SOLVED || solution.length() < config.minMoves) return null;
+    return new Result(level, solution);
+  }
+
+  private Level sample(Random random) {
+    IDimension dim = config.dim;
+    taken.clear();
+    ImmutableList.Builder<Piece> pieces = ImmutableList.builder();
+    // Keep the king off the edge so that it is not lost right away
+    int king = toIndex(dim, 1 + random.nextInt(dim.width() - 2), 1 + random.nextInt(dim.height() - 2));
+    taken.set(king);
+    taken.or(borderingNeighbors(dim, king, new BitSet()));
+    pieces.add(new Piece(-1, Piece.Side.PLAYER, Piece.Type.KING, king));
+    for (int i = 0; i < config.playerPieces; i++) {
+      pieces.add(new Piece(-1, Piece.Side.PLAYER, PLAYER_TYPES[random.nextInt(PLAYER_TYPES.length)], freeSquare(random)));
+    }
+    int enemies = config.minEnemies + random.nextInt(config.maxEnemies - config.minEnemies + 1);
+    for (int i = 0; i < enemies; i++) {
+      pieces.add(new Piece(-1, Piece.Side.ENEMY, ENEMY_TYPES[random.nextInt(ENEMY_TYPES.length)], freeSquare(random)));
+    }
+    return new Level(pieces.build());
+  }
+
+  private int freeSquare(Random random) {
+    int squareCount = config.dim.width() * config.dim.height();
+    int square;
+    do {
+      square = random.nextInt(squareCount);
+    } while (taken.get(square));
+    taken.set(square);
+    return square;
+  }
+}
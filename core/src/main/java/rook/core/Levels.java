@@ -0,0 +1,107 @@
+package rook.core;
+
+import pythagoras.i.IDimension;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static de.cdietze.playn_util.PointUtils.toIndex;
+import static de.cdietze.playn_util.PointUtils.toX;
+import static de.cdietze.playn_util.PointUtils.toY;
+import static rook.core.Piece.Side.ENEMY;
+import static rook.core.Piece.Side.PLAYER;
+import static rook.core.Piece.Type.*;
+
+/**
+ * The hand-made levels. They only add pieces, so they can set up a {@link GameState} as well as a headless
+ * {@link Engine}.
+ */
+public final class Levels {
+
+  private Levels() {}
+
+  public interface Setup {
+    void addPiece(Piece.Side side, Piece.Type type, int pos);
+  }
+
+  public static final int COUNT = 2;
+
+  private static final Piece.Type[] ENEMY_TYPES = Piece.Type.values();
+
+  /**
+   * @param level 1-based level number
+   */
+  public static void setup(int level, Setup setup) {
+    switch (level) {
+      case 1:
+        setupState1(setup);
+        return;
+      case 2:
+        setupState2(setup);
+        return;
+    }
+    throw new IllegalArgumentException("unknown level: " + level);
+  }
+
+  public static void setupState1(Setup setup) {
+    setup.addPiece(PLAYER, KING, 0);
+//    setup.addPiece(PLAYER, BISHOP, 1);
+//    setup.addPiece(PLAYER, BISHOP, 2);
+//    setup.addPiece(PLAYER, BISHOP, 10);
+//    setup.addPiece(PLAYER, ROOK, 3);
+
+//    setup.addPiece(ENEMY, ROOK, 4);
+//    setup.addPiece(ENEMY, BISHOP, 12);
+    setup.addPiece(ENEMY, KING, 63);
+    setup.addPiece(ENEMY, KING, 62);
+    setup.addPiece(ENEMY, KING, 55);
+    setup.addPiece(ENEMY, KING, 54);
+    setup.addPiece(ENEMY, KING, 47);
+    setup.addPiece(ENEMY, KING, 61);
+  }
+
+  public static void setupState2(Setup setup) {
+    setup.addPiece(PLAYER, KING, 0);
+    setup.addPiece(PLAYER, BISHOP, 1);
+    setup.addPiece(PLAYER, BISHOP, 9);
+    setup.addPiece(PLAYER, ROOK, 8);
+
+    setup.addPiece(ENEMY, BISHOP, 7);
+    setup.addPiece(ENEMY, BISHOP, 15);
+    setup.addPiece(ENEMY, BISHOP, 23);
+    setup.addPiece(ENEMY, BISHOP, 31);
+    setup.addPiece(ENEMY, ROOK, 39);
+    setup.addPiece(ENEMY, ROOK, 47);
+
+    setup.addPiece(ENEMY, BISHOP, 56);
+    setup.addPiece(ENEMY, BISHOP, 57);
+    setup.addPiece(ENEMY, BISHOP, 58);
+    setup.addPiece(ENEMY, BISHOP, 59);
+    setup.addPiece(ENEMY, ROOK, 60);
+    setup.addPiece(ENEMY, ROOK, 61);
+  }
+
+  /**
+   * Sets up an arena of any size, e.g. to test big boards with many enemies: the player king in the center between a
+   * rook and a bishop, and `enemies` random enemies at least three squares away from the king.
+   */
+  public static void setupArena(IDimension dim, int enemies, Random random, Setup setup) {
+    checkArgument(dim.width() >= 7 && dim.height() >= 7, "arena too small: %s", dim);
+    int kingX = dim.width() / 2;
+    int kingY = dim.height() / 2;
+    checkArgument(enemies <= dim.width() * dim.height() - 49, "too many enemies: %s", enemies);
+    setup.addPiece(PLAYER, KING, toIndex(dim, kingX, kingY));
+    setup.addPiece(PLAYER, ROOK, toIndex(dim, kingX + 1, kingY));
+    setup.addPiece(PLAYER, BISHOP, toIndex(dim, kingX - 1, kingY));
+    BitSet taken = new BitSet();
+    for (int i = 0; i < enemies; i++) {
+      int square;
+      do {
+        square = random.nextInt(dim.width() * dim.height());
+      } while (taken.get(square) || Math.max(Math.abs(toX(dim, square) - kingX), Math.abs(toY(dim, square) - kingY)) < 3);
+      taken.set(square);
+      setup.addPiece(ENEMY, ENEMY_TYPES[random.nextInt(ENEMY_TYPES.length)], square);
+    }
+  }
+}
@@ -6,14 +6,25 @@ import playn.scene.SceneGame;
 import tripleplay.game.ScreenStack;
 import tripleplay.game.trans.SlideTransition;
 
-import java.util.Random;
-
-import static rook.core.Piece.Side.ENEMY;
-import static rook.core.Piece.Side.PLAYER;
-import static rook.core.Piece.Type.*;
+import java.util.function.LongSupplier;
 
 public class MainGame extends SceneGame {
 
+  public static class Config {
+    /**
+     * Shows the {@link FrameHud} from the start, F3 toggles it
+     */
+    public boolean frameHud = false;
+    /**
+     * Counts the bytes allocated by the game thread or null if the platform cannot
+     */
+    public LongSupplier allocatedBytes;
+    /**
+     * Receives the counts and timings of the rules
+     */
+    public Metrics metrics = Metrics.NONE;
+  }
+
   public final ScreenStack screens = new ScreenStack(this, rootLayer) {
     @Override
     protected Transition defaultPushTransition() {
@@ -26,60 +37,27 @@ public class MainGame extends SceneGame {
     }
   };
 
+  public final Config config;
   public final ImageLoader.Images images;
 
   public MainGame(Platform plat) {
+    this(plat, new Config());
+  }
+
+  public MainGame(Platform plat, Config config) {
     super(plat, 33); // update our "simulation" 33ms (30 times per second)
+    this.config = config;
 
     images = ImageLoader.loadImages(plat);
 
     // Register Pointer so we can handle any pointer input (clicks, mouse/touch events etc.)
     new Pointer(plat, rootLayer, true);
 
-    GameState gameState = setupState1();
-//    GameState gameState = setupState2();
+    GameState gameState = new GameState(new Rng(), plat.log(), false);
+    gameState.setEnemyPolicy(new SearchPlanner());
+    gameState.setMetrics(config.metrics);
+    Levels.setupState1(gameState::addPiece);
+//    Levels.setupState2(gameState::addPiece);
     screens.push(new BoardScreen(this, gameState));
   }
-
-  private GameState setupState1() {
-    GameState gameState = new GameState(new Random(), plat.log(), false);
-    gameState.pieces.add(new Piece(PLAYER, KING, 0));
-//    gameState.pieces.add(new Piece(PLAYER, BISHOP, 1));
-//    gameState.pieces.add(new Piece(PLAYER, BISHOP, 2));
-//    gameState.pieces.add(new Piece(PLAYER, BISHOP, 10));
-//    gameState.pieces.add(new Piece(PLAYER, ROOK, 3));
-
-//    gameState.pieces.add(new Piece(ENEMY, ROOK, 4));
-//    gameState.pieces.add(new Piece(ENEMY, BISHOP, 12));
-    gameState.pieces.add(new Piece(ENEMY, KING, 63));
-    gameState.pieces.add(new Piece(ENEMY, KING, 62));
-    gameState.pieces.add(new Piece(ENEMY, KING, 55));
-    gameState.pieces.add(new Piece(ENEMY, KING, 54));
-    gameState.pieces.add(new Piece(ENEMY, KING, 47));
-    gameState.pieces.add(new Piece(ENEMY, KING, 61));
-    return gameState;
-  }
-
-  private GameState setupState2() {
-    GameState gameState = new GameState(new Random(), plat.log(), false);
-    gameState.pieces.add(new Piece(PLAYER, KING, 0));
-    gameState.pieces.add(new Piece(PLAYER, BISHOP, 1));
-    gameState.pieces.add(new Piece(PLAYER, BISHOP, 9));
-    gameState.pieces.add(new Piece(PLAYER, ROOK, 8));
-
-    gameState.pieces.add(new Piece(ENEMY, BISHOP, 7));
-    gameState.pieces.add(new Piece(ENEMY, BISHOP, 15));
-    gameState.pieces.add(new Piece(ENEMY, BISHOP, 23));
-    gameState.pieces.add(new Piece(ENEMY, BISHOP, 31));
-    gameState.pieces.add(new Piece(ENEMY, ROOK, 39));
-    gameState.pieces.add(new Piece(ENEMY, ROOK, 47));
-
-    gameState.pieces.add(new Piece(ENEMY, BISHOP, 56));
-    gameState.pieces.add(new Piece(ENEMY, BISHOP, 57));
-    gameState.pieces.add(new Piece(ENEMY, BISHOP, 58));
-    gameState.pieces.add(new Piece(ENEMY, BISHOP, 59));
-    gameState.pieces.add(new Piece(ENEMY, ROOK, 60));
-    gameState.pieces.add(new Piece(ENEMY, ROOK, 61));
-    return gameState;
-  }
 }
@@ -0,0 +1,54 @@
+package rook.core;
+
+/**
+ * Receives counts and timings from the hot paths of the rules, e.g. to see which step of a turn got slower without
+ * attaching a profiler. Callers skip the timing when the metrics are {@link #NONE}, so without metrics a call costs
+ * a comparison.
+ */
+public interface Metrics {
+
+  enum Counter {
+    /**
+     * Legal moves generated for a piece
+     */
+    MOVE_GENERATIONS,
+    /**
+     * Moves that pushed at least one piece
+     */
+    PUSH_CHAINS,
+    /**
+     * The pieces pushed by those moves
+     */
+    PUSHED_PIECES,
+    /**
+     * Derived sets of squares of a {@link GameState} that were computed again
+     */
+    DERIVED_RECOMPUTATIONS,
+    /**
+     * Enemy intentions that were planned or whose destination was computed again for the board
+     */
+    INTENTION_RECALCULATIONS,
+  }
+
+  enum Timer {
+    /**
+     * A whole turn started by {@link GameState#tryMoveSelectedPiece}
+     */
+    PLAYER_MOVE,
+    /**
+     * The execution of the enemy intentions in a turn
+     */
+    ENEMY_MOVES,
+  }
+
+  void count(Counter counter, int amount);
+
+  void time(Timer timer, long nanos);
+
+  Metrics NONE = new Metrics() {
+    @Override
+    public void count(Counter counter, int amount) {}
+    @Override
+    public void time(Timer timer, long nanos) {}
+  };
+}
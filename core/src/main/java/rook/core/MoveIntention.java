@@ -3,7 +3,6 @@ package rook.core;
 import com.google.common.base.MoreObjects;
 import com.google.errorprone.annotations.Immutable;
 
-import java.util.BitSet;
 import java.util.Optional;
 
 @Immutable
@@ -20,14 +19,19 @@ public class MoveIntention {
   }
 
   public Optional<Integer> calcDest(GameState state) {
-    BitSet opponent = new BitSet();
-    state.playerPieces().forEach(p -> opponent.set(p.pos));
-    int pieceIndex = state.pieceIndexById(pieceId);
-    if (pieceIndex < 0) return Optional.empty();
-    Piece piece = state.pieces.get(pieceIndex);
-    int result = PieceMoves.slideInDir(state.dim, piece.pos, dir, state.blockedSquaresForEnemy.get(), opponent, moveLength);
+    int result = calcDestSquare(state.position);
+    return result >= 0 ? Optional.of(result) : Optional.empty();
+  }
+
+  /**
+   * @returns the square the piece would move to if the intention was executed now or -1 if the piece is gone.
+   */
+  public int calcDestSquare(Position position) {
+    int pieceIndex = position.indexOf(pieceId);
+    if (pieceIndex < 0) return -1;
+    int result = PieceMoves.slideInDir(position.dim, position.square(pieceIndex), dir, Engine.BLOCKED_FOR_ENEMY, position.playerSquares(), moveLength);
     // System.out.println("MoveIntention#calcDest, result:" + result + ", this:" + this);
-    return Optional.ofNullable(result);
+    return result;
   }
 
   @Override
@@ -6,13 +6,13 @@ import com.google.errorprone.annotations.Immutable;
 @Immutable
 public class Piece {
 
-  enum Type {
+  public enum Type {
     BISHOP,
     KING,
     ROOK,
   }
 
-  enum Side {
+  public enum Side {
     PLAYER,
     ENEMY,
   }
@@ -29,10 +29,6 @@ public class Piece {
     this.pos = pos;
   }
 
-  public Piece(Side side, Type type, int pos) {
-    this(idCounter++, side, type, pos);
-  }
-
   private Piece(Builder builder) {
     id = builder.id;
     side = builder.side;
@@ -54,8 +50,6 @@ public class Piece {
             .toString();
   }
 
-  private static int idCounter = 0;
-
   public static Builder newBuilder() {
     return new Builder();
   }
@@ -54,32 +54,117 @@ public class PieceMoves {
   }
 
   private static BitSet slide(IDimension dim, int x, int y, Direction dir, BitSet blocked, BitSet captures, BitSet result) {
-    for (int i = 1; contains(dim, x + i * dir.x(), y + i * dir.y()); i++) {
-      int p = toIndex(dim, x + i * dir.x(), y + i * dir.y());
+    int stride = stride(dim, dir);
+    int p = toIndex(dim, x, y);
+    for (int i = raySteps(dim, x, y, dir); i > 0; i--) {
+      p += stride;
       if (blocked.get(p)) break;
-      if (captures.get(p)) {
+      result.set(p);
+      if (captures.get(p)) break;
+    }
+    return result;
+  }
+
+  private static final Direction[] BISHOP_DIRECTIONS = {UP_LEFT, UP_RIGHT, DOWN_RIGHT, DOWN_LEFT};
+  private static final Direction[] ROOK_DIRECTIONS = {UP, RIGHT, DOWN, LEFT};
+
+  /**
+   * @returns the squares that decide the moves of a piece on `pos`: its destinations and the squares that end its
+   * rays. The result of {@link #moves} only changes when one of these squares changes.
+   */
+  static BitSet moveDependencies(IDimension dim, Piece.Type type, int pos, BitSet blocked, BitSet captures, BitSet result) {
+    if (type == Piece.Type.KING) return PointUtils.borderingNeighbors(dim, pos, result);
+    int x = toX(dim, pos);
+    int y = toY(dim, pos);
+    for (Direction dir : type == Piece.Type.BISHOP ? BISHOP_DIRECTIONS : ROOK_DIRECTIONS) {
+      int stride = stride(dim, dir);
+      int p = pos;
+      for (int i = raySteps(dim, x, y, dir); i > 0; i--) {
+        p += stride;
         result.set(p);
-        break;
+        if (blocked.get(p) || captures.get(p)) break;
       }
-      result.set(p);
     }
     return result;
   }
 
+  /**
+   * @returns the index offset of one step in `dir`.
+   */
+  static int stride(IDimension dim, Direction dir) {
+    return dir.x() + dim.width() * dir.y();
+  }
+
+  /**
+   * @returns how many steps a piece on x,y can take in `dir` before it leaves the board. Sliding by {@link #stride}
+   * within these steps needs no bounds checks, so the cost of a ray only depends on its length and not on the board
+   * size.
+   */
+  static int raySteps(IDimension dim, int x, int y, Direction dir) {
+    int stepsX = dir.x() > 0 ? dim.width() - 1 - x : dir.x() < 0 ? x : Integer.MAX_VALUE;
+    int stepsY = dir.y() > 0 ? dim.height() - 1 - y : dir.y() < 0 ? y : Integer.MAX_VALUE;
+    return Math.min(stepsX, stepsY);
+  }
+
+  /**
+   * Bitboard variant of {@link #moves(IDimension, Piece.Type, int, BitSet, BitSet, BitSet)} for boards that
+   * {@link Bitboard#supports(IDimension)}.
+   *
+   * @returns a bitboard containing all possible destinations for the given piece.
+   */
+  public static long moves(Piece.Type type, int pos, long blocked, long captures) {
+    switch (type) {
+      case BISHOP:
+        return bishopMoves(pos, blocked, captures);
+      case KING:
+        return kingMoves(pos, blocked, captures);
+      case ROOK:
+        return rookMoves(pos, blocked, captures);
+    }
+    throw new RuntimeException("unknown piece type: " + type);
+  }
+
+  public static long kingMoves(int pos, long blocked, long captures) {
+    return Bitboard.kingMask(pos) & ~blocked;
+  }
+
+  public static long bishopMoves(int pos, long blocked, long captures) {
+    return SlidingAttacks.bishop(pos, blocked | captures) & ~blocked;
+  }
+
+  public static long rookMoves(int pos, long blocked, long captures) {
+    return SlidingAttacks.rook(pos, blocked | captures) & ~blocked;
+  }
+
   /**
    * @returns the index of the destination square when a piece on `pos` square moves (slides) in x,dirY up to `moveLength` times.
    * If the piece hits an impassable square on its way, the last passable square is returned.
    */
   public static int slideInDir(IDimension dim, int pos, Direction dir, BitSet blocked, BitSet captures, int moveLength) {
+    int stride = stride(dim, dir);
     int curPos = pos;
-    int posX = toX(dim, pos);
-    int posY = toY(dim, pos);
-    for (int i = 1; i <= moveLength && contains(dim, posX + i * dir.x(), posY + i * dir.y()); i++) {
-      int p = toIndex(dim, posX + i * dir.x(), posY + i * dir.y());
+    for (int i = Math.min(moveLength, raySteps(dim, toX(dim, pos), toY(dim, pos), dir)); i > 0; i--) {
+      int p = curPos + stride;
       if (blocked.get(p)) return curPos;
       if (captures.get(p)) return p;
       else curPos = p;
     }
     return curPos;
   }
+
+  /**
+   * Bitboard variant of {@link #slideInDir(IDimension, int, Direction, BitSet, BitSet, int)}.
+   */
+  public static int slideInDir(int pos, Direction dir, long blocked, long captures, int moveLength) {
+    int curPos = pos;
+    long cur = Bitboard.bit(pos);
+    for (int i = 1; i <= moveLength; i++) {
+      cur = Bitboard.shift(cur, dir);
+      if (cur == 0 || (cur & blocked) != 0) return curPos;
+      int p = Long.numberOfTrailingZeros(cur);
+      if ((cur & captures) != 0) return p;
+      else curPos = p;
+    }
+    return curPos;
+  }
 }
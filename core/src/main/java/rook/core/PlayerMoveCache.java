@@ -0,0 +1,80 @@
+package rook.core;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The legal destinations of the player pieces by piece id. An entry is computed when it is first asked for in a
+ * turn and stays valid until one of the squares it depends on changes, see {@link PieceMoves#moveDependencies}. A
+ * move usually only touches a few rays, so the other entries survive into the next turn.
+ */
+final class PlayerMoveCache {
+
+  private final Engine engine;
+  private final Position position;
+  /**
+   * The ids of the valid entries
+   */
+  private final BitSet valid = new BitSet();
+  private BitSet[] moves = new BitSet[16];
+  /**
+   * The squares each entry depends on, including the square of its piece
+   */
+  private BitSet[] dependencies = new BitSet[16];
+
+  PlayerMoveCache(Engine engine) {
+    this.engine = engine;
+    this.position = engine.position;
+  }
+
+  /**
+   * @returns the legal destinations of the player piece with `pieceId`. The BitSet is owned by the cache and must not
+   * be modified.
+   */
+  BitSet moves(int pieceId) {
+    if (valid.get(pieceId)) return moves[pieceId];
+    int index = position.indexOf(pieceId);
+    checkArgument(index >= 0 && position.side(index) == Piece.Side.PLAYER, "not a player piece: %s", pieceId);
+    if (pieceId >= moves.length) {
+      int length = Math.max(pieceId + 1, moves.length * 2);
+      moves = Arrays.copyOf(moves, length);
+      dependencies = Arrays.copyOf(dependencies, length);
+    }
+    if (moves[pieceId] == null) {
+      moves[pieceId] = new BitSet();
+      dependencies[pieceId] = new BitSet();
+    }
+    BitSet result = moves[pieceId];
+    result.clear();
+    engine.playerMoves(index, result);
+    BitSet squares = dependencies[pieceId];
+    squares.clear();
+    int square = position.square(index);
+    PieceMoves.moveDependencies(position.dim, position.type(index), square, engine.blockedSquaresForPlayer(),
+            position.occupied(), squares);
+    squares.set(square);
+    valid.set(pieceId);
+    return result;
+  }
+
+  /**
+   * Drops the entries that depend on `square`, e.g. because a piece moved onto it or the fog over it was revealed.
+   */
+  void squareChanged(int square) {
+    for (int id = valid.nextSetBit(0); id >= 0; id = valid.nextSetBit(id + 1)) {
+      if (dependencies[id].get(square)) valid.clear(id);
+    }
+  }
+
+  void squaresChanged(BitSet squares) {
+    for (int id = valid.nextSetBit(0); id >= 0; id = valid.nextSetBit(id + 1)) {
+      if (dependencies[id].intersects(squares)) valid.clear(id);
+    }
+  }
+
+  void clear() {
+    valid.clear();
+  }
+}
@@ -0,0 +1,528 @@
+package rook.core;
+
+import pythagoras.i.Dimension;
+import pythagoras.i.IDimension;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A plain mutable game position: the pieces, the fog of war and the enemy intentions.
+ * <p>
+ * Pieces and intentions are kept in parallel arrays in the order they were added, so changing a position does not
+ * allocate. A piece's index shifts when a piece before it is removed, just like in a {@link java.util.List}. The
+ * rules that change a position live in {@link Engine}.
+ * <p>
+ * Every change is recorded on an undo stack of fixed size int records. Take a {@link #mark()} before making a move
+ * and {@link #undo(int)} to it to unmake the move, including pushes, pieces pushed over the board and revealed fog.
+ * <p>
+ * The position also keeps a Zobrist {@link #hash()} of its pieces, fog and intentions up to date.
+ */
+public final class Position {
+
+  /**
+   * Receives every change of a position, e.g. to mirror it into reactive values.
+   */
+  public interface Listener {
+    default void onPieceAdded(int index) {}
+    default void onPieceMoved(int index, int oldSquare) {}
+    /**
+     * @param index the index the piece had before it was removed
+     */
+    default void onPieceRemoved(int index, Piece piece) {}
+    /**
+     * @param squares the squares that were revealed together. The BitSet is reused after the call.
+     */
+    default void onFogRevealed(BitSet squares) {}
+    /**
+     * Called once per {@link #undo} that reverted reveals.
+     *
+     * @param squares the squares that are fogged again. The BitSet is reused after the call.
+     */
+    default void onFogAdded(BitSet squares) {}
+    default void onIntentionsChanged() {}
+    /**
+     * Called instead of the individual changes when the whole position was replaced, see {@link #set}.
+     */
+    default void onReset() {}
+  }
+
+  private static final Listener NO_LISTENER = new Listener() {};
+
+  private static final Piece.Side[] SIDES = Piece.Side.values();
+  private static final Piece.Type[] TYPES = Piece.Type.values();
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  public final IDimension dim;
+  private Listener listener = NO_LISTENER;
+
+  private int size;
+  /**
+   * Pieces per side by ordinal, so that counting does not depend on the board size
+   */
+  private final int[] sideCounts = new int[SIDES.length];
+  private int[] ids = new int[16];
+  private Piece.Side[] sides = new Piece.Side[16];
+  private Piece.Type[] types = new Piece.Type[16];
+  private int[] squares = new int[16];
+
+  /**
+   * Maps square -> piece index, -1 for empty squares
+   */
+  private final int[] indexBySquare;
+  /**
+   * Maps piece id -> piece index, -1 for ids not on the board. Grows with the highest id.
+   */
+  private int[] indexById = newIndexArray(16);
+
+  private final BitSet playerSquares = new BitSet();
+  private final BitSet enemySquares = new BitSet();
+  private final BitSet occupied = new BitSet();
+  private final BitSet fog = new BitSet();
+  /**
+   * Scratch set of the squares a reveal or undo changed
+   */
+  private final BitSet changedFog = new BitSet();
+
+  /**
+   * Piece ids are unique per position, so independent games don't share a counter
+   */
+  private int nextPieceId;
+
+  private long hash;
+
+  private int intentionCount;
+  private int[] intentionPieceIds = new int[16];
+  private Direction[] intentionDirs = new Direction[16];
+  private int[] intentionLengths = new int[16];
+
+  /*
+   * Undo records, each RECORD_SIZE ints: the op followed by up to four arguments.
+   */
+  private static final int RECORD_SIZE = 5;
+  /** index, previous nextPieceId */
+  private static final int OP_ADD = 1;
+  /** index, old square */
+  private static final int OP_MOVE = 2;
+  /** index, id, side << 8 | type, square */
+  private static final int OP_REMOVE = 3;
+  /** square */
+  private static final int OP_REVEAL = 4;
+  /** no arguments */
+  private static final int OP_ADD_INTENTION = 5;
+  /** piece id, direction, length. Written for every intention before an OP_CLEAR_INTENTIONS. */
+  private static final int OP_INTENTION = 6;
+  /** number of cleared intentions */
+  private static final int OP_CLEAR_INTENTIONS = 7;
+
+  private int[] undo = new int[64 * RECORD_SIZE];
+  private int undoSize;
+
+  public Position(IDimension dim, boolean fog) {
+    this.dim = new Dimension(dim);
+    this.indexBySquare = newIndexArray(squareCount());
+    if (fog) this.fog.set(0, squareCount());
+    this.hash = Zobrist.hash(this);
+  }
+
+  /**
+   * @returns a copy of this position without listener and undo history, e.g. to search ahead on.
+   */
+  public Position copy() {
+    Position result = new Position(dim, false);
+    result.size = size;
+    System.arraycopy(sideCounts, 0, result.sideCounts, 0, sideCounts.length);
+    result.ids = ids.clone();
+    result.sides = sides.clone();
+    result.types = types.clone();
+    result.squares = squares.clone();
+    System.arraycopy(indexBySquare, 0, result.indexBySquare, 0, indexBySquare.length);
+    result.indexById = indexById.clone();
+    result.playerSquares.or(playerSquares);
+    result.enemySquares.or(enemySquares);
+    result.occupied.or(occupied);
+    result.fog.or(fog);
+    result.nextPieceId = nextPieceId;
+    result.intentionCount = intentionCount;
+    result.intentionPieceIds = intentionPieceIds.clone();
+    result.intentionDirs = intentionDirs.clone();
+    result.intentionLengths = intentionLengths.clone();
+    result.hash = hash;
+    return result;
+  }
+
+  /**
+   * Replaces this position with a copy of `other`, which must have the same dimension, and forgets the undo history.
+   * The listener is only notified once with {@link Listener#onReset()}.
+   */
+  public void set(Position other) {
+    if (!dim.equals(other.dim)) throw new IllegalArgumentException("dimension " + other.dim + " != " + dim);
+    size = other.size;
+    System.arraycopy(other.sideCounts, 0, sideCounts, 0, sideCounts.length);
+    ids = other.ids.clone();
+    sides = other.sides.clone();
+    types = other.types.clone();
+    squares = other.squares.clone();
+    System.arraycopy(other.indexBySquare, 0, indexBySquare, 0, indexBySquare.length);
+    indexById = other.indexById.clone();
+    copyBits(other.playerSquares, playerSquares);
+    copyBits(other.enemySquares, enemySquares);
+    copyBits(other.occupied, occupied);
+    copyBits(other.fog, fog);
+    nextPieceId = other.nextPieceId;
+    intentionCount = other.intentionCount;
+    intentionPieceIds = other.intentionPieceIds.clone();
+    intentionDirs = other.intentionDirs.clone();
+    intentionLengths = other.intentionLengths.clone();
+    hash = other.hash;
+    undoSize = 0;
+    listener.onReset();
+  }
+
+  private static void copyBits(BitSet from, BitSet to) {
+    to.clear();
+    to.or(from);
+  }
+
+  private static int[] newIndexArray(int length) {
+    int[] result = new int[length];
+    Arrays.fill(result, -1);
+    return result;
+  }
+
+  public void setListener(Listener listener) {
+    this.listener = listener != null ? listener : NO_LISTENER;
+  }
+
+  public int squareCount() { return dim.width() * dim.height(); }
+
+  public int size() { return size; }
+  public int id(int index) { return ids[index]; }
+  public Piece.Side side(int index) { return sides[index]; }
+  public Piece.Type type(int index) { return types[index]; }
+  public int square(int index) { return squares[index]; }
+
+  /**
+   * @returns a new immutable snapshot of the piece at `index`.
+   */
+  public Piece piece(int index) {
+    return new Piece(ids[index], sides[index], types[index], squares[index]);
+  }
+
+  /**
+   * @returns the index of the piece on `square` or -1 if the square is empty.
+   */
+  public int indexAt(int square) { return indexBySquare[square]; }
+
+  /**
+   * @returns the index of the piece with the given id or -1 if it is not on the board.
+   */
+  public int indexOf(int pieceId) {
+    return pieceId >= 0 && pieceId < indexById.length ? indexById[pieceId] : -1;
+  }
+
+  /**
+   * @returns a 64 bit Zobrist hash of the pieces by id, side, type and square, the fog and the intentions in order.
+   * Equal positions have equal hashes, no matter in which order they were reached.
+   */
+  public long hash() { return hash; }
+
+  public int count(Piece.Side side) {
+    return sideCounts[side.ordinal()];
+  }
+
+  /*
+   * The following BitSets are owned by the position and must not be modified by callers.
+   */
+  public BitSet playerSquares() { return playerSquares; }
+  public BitSet enemySquares() { return enemySquares; }
+  public BitSet squares(Piece.Side side) { return side == Piece.Side.PLAYER ? playerSquares : enemySquares; }
+  public BitSet occupied() { return occupied; }
+  public BitSet fog() { return fog; }
+
+  public int intentionCount() { return intentionCount; }
+  public int intentionPieceId(int i) { return intentionPieceIds[i]; }
+  public Direction intentionDir(int i) { return intentionDirs[i]; }
+  public int intentionLength(int i) { return intentionLengths[i]; }
+
+  /**
+   * @returns a new immutable snapshot of the intention at `i`.
+   */
+  public MoveIntention intention(int i) {
+    return new MoveIntention(intentionPieceIds[i], intentionDirs[i], intentionLengths[i]);
+  }
+
+  /**
+   * @returns an id that is not used by any piece of this position yet.
+   */
+  public int nextPieceId() { return nextPieceId; }
+
+  /**
+   * Restores the id counter of a loaded position, it is not recorded for undo.
+   */
+  void setNextPieceId(int nextPieceId) {
+    this.nextPieceId = nextPieceId;
+  }
+
+  /**
+   * @returns the index of the new piece.
+   */
+  public int addPiece(int id, Piece.Side side, Piece.Type type, int square) {
+    record(OP_ADD, size, nextPieceId, 0, 0);
+    nextPieceId = Math.max(nextPieceId, id + 1);
+    int index = size;
+    insertPiece(index, id, side, type, square);
+    listener.onPieceAdded(index);
+    return index;
+  }
+
+  /**
+   * Moves a piece onto `square`, which must be empty.
+   */
+  public void movePiece(int index, int square) {
+    int oldSquare = squares[index];
+    record(OP_MOVE, index, oldSquare, 0, 0);
+    setSquare(index, square);
+    listener.onPieceMoved(index, oldSquare);
+  }
+
+  public void removePiece(int index) {
+    record(OP_REMOVE, index, ids[index], sides[index].ordinal() << 8 | types[index].ordinal(), squares[index]);
+    Piece piece = listener != NO_LISTENER ? piece(index) : null;
+    deletePiece(index);
+    listener.onPieceRemoved(index, piece);
+  }
+
+  private void insertPiece(int index, int id, Piece.Side side, Piece.Type type, int square) {
+    if (size == ids.length) {
+      int length = size * 2;
+      ids = Arrays.copyOf(ids, length);
+      sides = Arrays.copyOf(sides, length);
+      types = Arrays.copyOf(types, length);
+      squares = Arrays.copyOf(squares, length);
+    }
+    System.arraycopy(ids, index, ids, index + 1, size - index);
+    System.arraycopy(sides, index, sides, index + 1, size - index);
+    System.arraycopy(types, index, types, index + 1, size - index);
+    System.arraycopy(squares, index, squares, index + 1, size - index);
+    size++;
+    ids[index] = id;
+    sides[index] = side;
+    types[index] = type;
+    squares[index] = square;
+    sideCounts[side.ordinal()]++;
+    for (int i = index; i < size; i++) {
+      index(i);
+    }
+    squares(side).set(square);
+    occupied.set(square);
+    hash ^= Zobrist.piece(id, side, type, square);
+  }
+
+  private void deletePiece(int index) {
+    hash ^= Zobrist.piece(ids[index], sides[index], types[index], squares[index]);
+    clearSquare(index, squares[index]);
+    indexById[ids[index]] = -1;
+    sideCounts[sides[index].ordinal()]--;
+    size--;
+    System.arraycopy(ids, index + 1, ids, index, size - index);
+    System.arraycopy(sides, index + 1, sides, index, size - index);
+    System.arraycopy(types, index + 1, types, index, size - index);
+    System.arraycopy(squares, index + 1, squares, index, size - index);
+    sides[size] = null;
+    types[size] = null;
+    for (int i = index; i < size; i++) {
+      index(i);
+    }
+  }
+
+  private void setSquare(int index, int square) {
+    hash ^= Zobrist.piece(ids[index], sides[index], types[index], squares[index])
+        ^ Zobrist.piece(ids[index], sides[index], types[index], square);
+    clearSquare(index, squares[index]);
+    squares[index] = square;
+    indexBySquare[square] = index;
+    squares(sides[index]).set(square);
+    occupied.set(square);
+  }
+
+  private void clearSquare(int index, int square) {
+    int occupant = indexBySquare[square];
+    if (occupant == index) {
+      indexBySquare[square] = -1;
+      squares(sides[index]).clear(square);
+      occupied.clear(square);
+    } else if (occupant >= 0 && sides[occupant] != sides[index]) {
+      // The square was already taken by a piece that moved there earlier
+      squares(sides[index]).clear(square);
+    }
+  }
+
+  private void index(int index) {
+    indexBySquare[squares[index]] = index;
+    int id = ids[index];
+    if (id >= indexById.length) {
+      int oldLength = indexById.length;
+      indexById = Arrays.copyOf(indexById, Math.max(id + 1, oldLength * 2));
+      Arrays.fill(indexById, oldLength, indexById.length, -1);
+    }
+    indexById[id] = index;
+  }
+
+  /**
+   * Replaces the fog of a loaded position, it is not recorded for undo and the listener is not notified.
+   */
+  void setFog(BitSet fog) {
+    for (int square = this.fog.nextSetBit(0); square >= 0; square = this.fog.nextSetBit(square + 1)) {
+      hash ^= Zobrist.fog(square);
+    }
+    copyBits(fog, this.fog);
+    for (int square = fog.nextSetBit(0); square >= 0; square = fog.nextSetBit(square + 1)) {
+      hash ^= Zobrist.fog(square);
+    }
+  }
+
+  /**
+   * Removes the fog from `squares`. The listener is notified once about all squares that were fogged.
+   *
+   * @returns whether any of the squares was fogged.
+   */
+  public boolean reveal(BitSet squares) {
+    changedFog.clear();
+    changedFog.or(squares);
+    changedFog.and(fog);
+    if (changedFog.isEmpty()) return false;
+    for (int square = changedFog.nextSetBit(0); square >= 0; square = changedFog.nextSetBit(square + 1)) {
+      record(OP_REVEAL, square, 0, 0, 0);
+      hash ^= Zobrist.fog(square);
+    }
+    fog.andNot(changedFog);
+    listener.onFogRevealed(changedFog);
+    return true;
+  }
+
+  public void clearIntentions() {
+    for (int i = 0; i < intentionCount; i++) {
+      record(OP_INTENTION, intentionPieceIds[i], intentionDirs[i].ordinal(), intentionLengths[i], 0);
+    }
+    record(OP_CLEAR_INTENTIONS, intentionCount, 0, 0, 0);
+    while (intentionCount > 0) {
+      removeLastIntention();
+    }
+  }
+
+  public void addIntention(int pieceId, Direction dir, int moveLength) {
+    record(OP_ADD_INTENTION, 0, 0, 0, 0);
+    appendIntention(pieceId, dir, moveLength);
+  }
+
+  private void appendIntention(int pieceId, Direction dir, int moveLength) {
+    if (intentionCount == intentionPieceIds.length) {
+      int length = intentionCount * 2;
+      intentionPieceIds = Arrays.copyOf(intentionPieceIds, length);
+      intentionDirs = Arrays.copyOf(intentionDirs, length);
+      intentionLengths = Arrays.copyOf(intentionLengths, length);
+    }
+    intentionPieceIds[intentionCount] = pieceId;
+    intentionDirs[intentionCount] = dir;
+    intentionLengths[intentionCount] = moveLength;
+    intentionCount++;
+    hash ^= Zobrist.intention(intentionCount - 1, pieceId, dir, moveLength);
+  }
+
+  private void removeLastIntention() {
+    intentionCount--;
+    hash ^= Zobrist.intention(intentionCount, intentionPieceIds[intentionCount], intentionDirs[intentionCount],
+        intentionLengths[intentionCount]);
+  }
+
+  /**
+   * Notifies the listener once a batch of intention changes is complete.
+   */
+  public void intentionsChanged() {
+    listener.onIntentionsChanged();
+  }
+
+  private void record(int op, int a, int b, int c, int d) {
+    if (undoSize + RECORD_SIZE > undo.length) undo = Arrays.copyOf(undo, undo.length * 2);
+    undo[undoSize] = op;
+    undo[undoSize + 1] = a;
+    undo[undoSize + 2] = b;
+    undo[undoSize + 3] = c;
+    undo[undoSize + 4] = d;
+    undoSize += RECORD_SIZE;
+  }
+
+  /**
+   * @returns a mark to {@link #undo} to later.
+   */
+  public int mark() {
+    return undoSize;
+  }
+
+  /**
+   * Reverts all changes made after `mark` was taken. The listener is notified about every reverted change.
+   */
+  public void undo(int mark) {
+    boolean intentionsChanged = false;
+    changedFog.clear();
+    while (undoSize > mark) {
+      undoSize -= RECORD_SIZE;
+      int r = undoSize;
+      switch (undo[r]) {
+        case OP_ADD: {
+          int index = undo[r + 1];
+          Piece piece = listener != NO_LISTENER ? piece(index) : null;
+          deletePiece(index);
+          nextPieceId = undo[r + 2];
+          listener.onPieceRemoved(index, piece);
+          break;
+        }
+        case OP_MOVE: {
+          int index = undo[r + 1];
+          int oldSquare = squares[index];
+          setSquare(index, undo[r + 2]);
+          listener.onPieceMoved(index, oldSquare);
+          break;
+        }
+        case OP_REMOVE: {
+          int index = undo[r + 1];
+          int sideAndType = undo[r + 3];
+          insertPiece(index, undo[r + 2], SIDES[sideAndType >> 8], TYPES[sideAndType & 0xff], undo[r + 4]);
+          listener.onPieceAdded(index);
+          break;
+        }
+        case OP_REVEAL:
+          fog.set(undo[r + 1]);
+          changedFog.set(undo[r + 1]);
+          hash ^= Zobrist.fog(undo[r + 1]);
+          break;
+        case OP_ADD_INTENTION:
+          removeLastIntention();
+          intentionsChanged = true;
+          break;
+        case OP_CLEAR_INTENTIONS: {
+          // The cleared intentions are recorded right below, restore them in their original order
+          int count = undo[r + 1];
+          undoSize -= count * RECORD_SIZE;
+          for (int i = undoSize; i < r; i += RECORD_SIZE) {
+            appendIntention(undo[i + 1], DIRECTIONS[undo[i + 2]], undo[i + 3]);
+          }
+          intentionsChanged = true;
+          break;
+        }
+        default:
+          throw new IllegalStateException("unknown undo op: " + undo[r]);
+      }
+    }
+    if (!changedFog.isEmpty()) listener.onFogAdded(changedFog);
+    if (intentionsChanged) listener.onIntentionsChanged();
+  }
+
+  /**
+   * Forgets all recorded changes, e.g. once a level is set up. Previously taken marks become invalid.
+   */
+  public void clearHistory() {
+    undoSize = 0;
+  }
+}
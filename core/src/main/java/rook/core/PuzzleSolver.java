@@ -0,0 +1,225 @@
+package rook.core;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Finds the shortest sequence of player moves that wins a position, e.g. for hints and to validate levels.
+ * <p>
+ * Once the enemies have made their intentions and plan their next moves with a deterministic {@link EnemyPolicy},
+ * a position is a single player puzzle. The solver is a plain iterative-deepening depth-first search that makes and
+ * unmakes the moves on a copy of the position. The last move of a line is never played, see {@link #searchLastMove}.
+ * Positions that cannot be won within the remaining depth are remembered in a {@link TranspositionTable}, so positions
+ * reached again through different move orders are not searched twice.
+ */
+public class PuzzleSolver {
+
+  public enum Status {
+    SOLVED,
+    /**
+     * There is no winning line within the depth bound
+     */
+    UNSOLVABLE,
+    /**
+     * The node budget ran out before the depth bound was searched completely
+     */
+    GAVE_UP,
+  }
+
+  public static final class Solution {
+    public final Status status;
+    /**
+     * The number of searched player moves
+     */
+    public final int nodes;
+    /**
+     * pieceId << 16 | dest
+     */
+    private final int[] moves;
+
+    Solution(Status status, int nodes, int[] moves) {
+      this.status = status;
+      this.nodes = nodes;
+      this.moves = moves;
+    }
+
+    public int length() { return moves.length; }
+    public int pieceId(int i) { return moves[i] >>> 16; }
+    public int dest(int i) { return moves[i] & 0xffff; }
+
+    @Override
+    public String toString() {
+      StringBuilder result = new StringBuilder(status.name());
+      for (int i = 0; i < moves.length; i++) {
+        result.append(i == 0 ? ": " : ", ").append(pieceId(i)).append("->").append(dest(i));
+      }
+      return result.toString();
+    }
+  }
+
+  public static final int DEFAULT_MAX_NODES = 2_000_000;
+
+  private final EnemyPolicy enemyPolicy;
+  private final int maxNodes;
+  private final TranspositionTable table = new TranspositionTable(18);
+
+  /*
+   * Per solve state
+   */
+  private Position position;
+  private Engine engine;
+  private int nodes;
+  private boolean aborted;
+  private int[] line = new int[16];
+  private int[][] replies = new int[16][];
+  private final BitSet moves = new BitSet();
+
+  /**
+   * Solves against {@link EnemyPolicy#greedy()} enemies.
+   */
+  public PuzzleSolver() {
+    this(EnemyPolicy.greedy(), DEFAULT_MAX_NODES);
+  }
+
+  /**
+   * @param enemyPolicy plans the enemy moves after each player move. It must be deterministic, the solver does not
+   * restore the state of a {@link Random}.
+   */
+  public PuzzleSolver(EnemyPolicy enemyPolicy, int maxNodes) {
+    this.enemyPolicy = enemyPolicy;
+    this.maxNodes = maxNodes;
+  }
+
+  /**
+   * Forgets the positions proven lost by earlier solves.
+   */
+  public void clear() {
+    table.clear();
+  }
+
+  /**
+   * Searches for a win of at most `maxDepth` player moves, starting with the current intentions of `start`.
+   */
+  public Solution solve(Position start, int maxDepth) {
+    position = start.copy();
+    engine = new Engine(position, new Random(0));
+    engine.setEnemyPolicy(enemyPolicy);
+    nodes = 0;
+    aborted = false;
+    table.newSearch();
+    try {
+      switch (engine.outcome()) {
+        case WON:
+          return new Solution(Status.SOLVED, 0, new int[0]);
+        case LOST:
+          return new Solution(Status.UNSOLVABLE, 0, new int[0]);
+        default:
+          break;
+      }
+      if (line.length < maxDepth) {
+        line = new int[maxDepth];
+        replies = Arrays.copyOf(replies, maxDepth);
+      }
+      for (int depth = 1; depth <= maxDepth; depth++) {
+        if (search(depth, 0)) return new Solution(Status.SOLVED, nodes, Arrays.copyOf(line, depth));
+        if (aborted) return new Solution(Status.GAVE_UP, nodes, new int[0]);
+      }
+      return new Solution(Status.UNSOLVABLE, nodes, new int[0]);
+    } finally {
+      position = null;
+      engine = null;
+    }
+  }
+
+  /**
+   * @returns whether the position can be won with at most `remaining` moves, the moves are stored in {@link #line}.
+   */
+  private boolean search(int remaining, int ply) {
+    if (remaining == 1) return searchLastMove(ply);
+    long hash = position.hash();
+    int slot = table.probe(hash);
+    if (slot >= 0 && table.depth(slot) >= remaining) return false;
+    int count = generateMoves(ply);
+    int[] plyMoves = replies[ply];
+    for (int i = 0; i < count; i++) {
+      if (++nodes > maxNodes) {
+        aborted = true;
+        return false;
+      }
+      int index = plyMoves[i] >>> 16;
+      int dest = plyMoves[i] & 0xffff;
+      int pieceId = position.id(index);
+      int mark = position.mark();
+      engine.tryPlayerMove(index, dest);
+      Engine.Outcome outcome = engine.outcome();
+      boolean won = outcome == Engine.Outcome.WON
+              || (outcome == Engine.Outcome.RUNNING && search(remaining - 1, ply + 1));
+      position.undo(mark);
+      if (won) {
+        line[ply] = pieceId << 16 | dest;
+        return true;
+      }
+      if (aborted) return false;
+    }
+    table.store(hash, remaining, 0, TranspositionTable.EXACT, -1);
+    return false;
+  }
+
+  /**
+   * An enemy that moves stays on the board unless another enemy pushes it off later, so the last enemy to move in a
+   * turn always survives it. The game is therefore only won in the turn in which the player pushes off the last
+   * enemy, which is decided without playing the turn.
+   */
+  private boolean searchLastMove(int ply) {
+    if (position.count(Piece.Side.ENEMY) != 1) return false;
+    for (int index = 0; index < position.size(); index++) {
+      if (position.side(index) != Piece.Side.PLAYER) continue;
+      moves.clear();
+      engine.playerMoves(index, moves);
+      int pos = position.square(index);
+      for (int dest = moves.nextSetBit(0); dest >= 0; dest = moves.nextSetBit(dest + 1)) {
+        nodes++;
+        if (GreedyPolicy.pushScore(position, pos, dest) < 0) {
+          line[ply] = position.id(index) << 16 | dest;
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Collects the player moves into {@link #replies}, moves that push an enemy over the board first, then other
+   * pushes, then quiet moves.
+   *
+   * @returns the number of moves.
+   */
+  private int generateMoves(int ply) {
+    int[] result = replies[ply];
+    if (result == null) result = replies[ply] = new int[64];
+    int count = 0;
+    int pushOffs = 0;
+    int pushes = 0;
+    for (int index = 0; index < position.size(); index++) {
+      if (position.side(index) != Piece.Side.PLAYER) continue;
+      moves.clear();
+      engine.playerMoves(index, moves);
+      int pos = position.square(index);
+      for (int dest = moves.nextSetBit(0); dest >= 0; dest = moves.nextSetBit(dest + 1)) {
+        if (count == result.length) result = replies[ply] = Arrays.copyOf(result, count * 2);
+        int move = index << 16 | dest;
+        result[count++] = move;
+        if (!position.occupied().get(dest)) continue;
+        // Move the push into the push section, pushing the displaced move back
+        result[count - 1] = result[pushes];
+        result[pushes++] = move;
+        if (GreedyPolicy.pushScore(position, pos, dest) < 0) {
+          result[pushes - 1] = result[pushOffs];
+          result[pushOffs++] = move;
+        }
+      }
+    }
+    return count;
+  }
+}
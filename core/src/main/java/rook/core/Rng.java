@@ -0,0 +1,47 @@
+package rook.core;
+
+import java.util.Random;
+
+/**
+ * A {@link Random} whose state can be saved and restored, e.g. for {@link Snapshot}s. It uses the same generator as
+ * {@link Random}, so `new Rng(seed)` yields the same numbers as `new Random(seed)`. The cached second value of
+ * {@link #nextGaussian()} is not part of the state.
+ */
+public class Rng extends Random {
+
+  private static final long MULTIPLIER = 0x5DEECE66DL;
+  private static final long ADDEND = 0xBL;
+  private static final long MASK = (1L << 48) - 1;
+
+  private long state;
+
+  public Rng() {
+    this(new Random().nextLong());
+  }
+
+  public Rng(long seed) {
+    super(seed);
+  }
+
+  @Override
+  public synchronized void setSeed(long seed) {
+    super.setSeed(seed);
+    // Called by the super constructor
+    state = (seed ^ MULTIPLIER) & MASK;
+  }
+
+  @Override
+  protected int next(int bits) {
+    state = (state * MULTIPLIER + ADDEND) & MASK;
+    return (int) (state >>> (48 - bits));
+  }
+
+  /**
+   * @returns the 48 bit state, the numbers after restoring it with {@link #setState} are the same as after now.
+   */
+  public long state() { return state; }
+
+  public void setState(long state) {
+    this.state = state & MASK;
+  }
+}
@@ -0,0 +1,309 @@
+package rook.core;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * An {@link EnemyPolicy} that plans by searching ahead over whole turns.
+ * <p>
+ * The enemies commit to their intentions before the player moves, so a turn is a max node (the enemies pick a plan
+ * for all of their pieces) followed by a min node (the player picks the reply that hurts that plan most). The search
+ * runs on a copy of the position and plays replies with {@link Engine#playTurn}, so pushes, push chains and pieces
+ * pushed off the board follow the real rules.
+ * <p>
+ * Trying every combination of enemy moves is exponential in the number of enemies. At the root the plan is improved
+ * one piece at a time instead: each piece tries all of its moves while the others keep theirs. The improvement starts
+ * from the {@link EnemyPolicy#greedy()} plan in which every piece makes its strongest threat, so that combined threats
+ * are found even though a single one would be dodged. In later turns of the search the enemies use the greedy plan.
+ * The search deepens iteratively until the time or node budget is spent and keeps the plan of the deepest finished
+ * iteration. Player replies are cut off as soon as they refute a plan (alpha pruning), pushes are tried first and
+ * results are cached in a {@link TranspositionTable}.
+ */
+public class SearchPlanner implements EnemyPolicy {
+
+  /**
+   * Leaves plenty of the 33 ms of a {@link MainGame} update for the rest of the frame
+   */
+  public static final int DEFAULT_BUDGET_MILLIS = 15;
+  public static final int DEFAULT_MAX_NODES = 100_000;
+
+  static final int WIN = GreedyPolicy.KING_VALUE;
+  private static final int INFINITY = Integer.MAX_VALUE;
+  private static final int MAX_DEPTH = 6;
+  private static final int NO_MOVE = -1;
+  private static final int PIECE_VALUE = GreedyPolicy.PIECE_VALUE;
+
+  private final long budgetMillis;
+  private final int maxNodes;
+  private final TranspositionTable table = new TranspositionTable(16);
+  private final GreedyPolicy greedy = new GreedyPolicy();
+
+  /*
+   * Per search state
+   */
+  private Position position;
+  private Engine engine;
+  private long deadline;
+  private int nodes;
+  private boolean aborted;
+  private int[] enemies = new int[16];
+  private int enemyCount;
+  private int[] plan = new int[16];
+  private int[] bestPlan = new int[16];
+  private int finishedDepth;
+
+  /**
+   * Player replies by ply, encoded as pieceIndex << 16 | dest
+   */
+  private final int[][] replies = new int[MAX_DEPTH + 1][64];
+  private final BitSet candidates = new BitSet();
+  private final BitSet moves = new BitSet();
+  private final BitSet attacks = new BitSet();
+
+  public SearchPlanner() {
+    this(DEFAULT_BUDGET_MILLIS, DEFAULT_MAX_NODES);
+  }
+
+  /**
+   * @param budgetMillis the time a plan may take, 0 for no time limit
+   * @param maxNodes the number of searched player turns a plan may take
+   */
+  public SearchPlanner(long budgetMillis, int maxNodes) {
+    this.budgetMillis = budgetMillis;
+    this.maxNodes = maxNodes;
+  }
+
+  /**
+   * @returns the depth in turns of the last plan.
+   */
+  public int lastDepth() { return finishedDepth; }
+
+  /**
+   * @returns the number of player turns searched for the last plan.
+   */
+  public int lastNodes() { return nodes; }
+
+  @Override
+  public void planIntentions(Engine game) {
+    position = game.position.copy();
+    engine = new Engine(position, new Random(0));
+    deadline = budgetMillis > 0 ? System.currentTimeMillis() + budgetMillis : Long.MAX_VALUE;
+    nodes = 0;
+    aborted = false;
+    finishedDepth = 0;
+    initEnemies();
+    if (enemyCount == 0 || GreedyPolicy.findPlayerKing(position) < 0) return;
+
+    greedyPlan(plan);
+    System.arraycopy(plan, 0, bestPlan, 0, enemyCount);
+    table.newSearch();
+    for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+      int score = improvePlan(depth);
+      if (aborted) break;
+      System.arraycopy(plan, 0, bestPlan, 0, enemyCount);
+      finishedDepth = depth;
+      if (Math.abs(score) >= WIN - MAX_DEPTH) break;
+    }
+    for (int i = 0; i < enemyCount; i++) {
+      if (bestPlan[i] != NO_MOVE) game.addIntention(enemies[i], bestPlan[i]);
+    }
+    position = null;
+    engine = null;
+  }
+
+  /**
+   * Collects the enemy indices, closest to the player king first, so their plans are settled first.
+   */
+  private void initEnemies() {
+    enemyCount = 0;
+    for (int index = 0; index < position.size(); index++) {
+      if (position.side(index) != Piece.Side.ENEMY) continue;
+      if (enemyCount == enemies.length) {
+        enemies = Arrays.copyOf(enemies, enemyCount * 2);
+        plan = new int[enemyCount * 2];
+        bestPlan = new int[enemyCount * 2];
+      }
+      enemies[enemyCount++] = index;
+    }
+    int king = GreedyPolicy.findPlayerKing(position);
+    if (king < 0) return;
+    // Insertion sort, there are only a few enemies
+    for (int i = 1; i < enemyCount; i++) {
+      int enemy = enemies[i];
+      int dist = distance(position.square(enemy), king);
+      int j = i - 1;
+      while (j >= 0 && distance(position.square(enemies[j]), king) > dist) {
+        enemies[j + 1] = enemies[j];
+        j--;
+      }
+      enemies[j + 1] = enemy;
+    }
+  }
+
+  /**
+   * Changes the move of one enemy at a time to the best one at `depth`.
+   *
+   * @returns the score of the resulting plan.
+   */
+  private int improvePlan(int depth) {
+    int planScore = scorePlan(depth, -INFINITY);
+    for (int i = 0; i < enemyCount && !aborted; i++) {
+      int enemy = enemies[i];
+      int current = plan[i];
+      candidates.clear();
+      engine.enemyMoves(enemy, candidates);
+      for (int dest = candidates.nextSetBit(0); dest >= 0 && !aborted; dest = candidates.nextSetBit(dest + 1)) {
+        if (dest == current) continue;
+        plan[i] = dest;
+        int score = scorePlan(depth, planScore);
+        if (score > planScore) {
+          planScore = score;
+          current = dest;
+        }
+      }
+      plan[i] = current;
+    }
+    return planScore;
+  }
+
+  /**
+   * @returns the score of {@link #plan}, or a value <= `alpha` if it is not better than `alpha`.
+   */
+  private int scorePlan(int depth, int alpha) {
+    int mark = position.mark();
+    position.clearIntentions();
+    for (int i = 0; i < enemyCount; i++) {
+      if (plan[i] != NO_MOVE) engine.addIntention(enemies[i], plan[i]);
+    }
+    int score = playerToMove(depth, 0, alpha);
+    position.undo(mark);
+    return score;
+  }
+
+  /**
+   * The min node: the player picks the reply that is worst for the enemies.
+   */
+  private int playerToMove(int depth, int ply, int alpha) {
+    long hash = position.hash();
+    int slot = table.probe(hash);
+    int hashMove = NO_MOVE;
+    if (slot >= 0) {
+      if (table.depth(slot) >= depth) {
+        int score = table.score(slot);
+        if (table.bound(slot) == TranspositionTable.EXACT) return score;
+        if (table.bound(slot) == TranspositionTable.UPPER_BOUND && score <= alpha) return score;
+      }
+      hashMove = table.move(slot);
+    }
+
+    int count = generateReplies(ply, hashMove);
+    if (count == 0) return evaluate();
+    int[] plyReplies = replies[ply];
+    int best = INFINITY;
+    int bestMove = NO_MOVE;
+    for (int i = 0; i < count; i++) {
+      int reply = plyReplies[i];
+      if (++nodes >= maxNodes || ((nodes & 31) == 0 && System.currentTimeMillis() > deadline)) aborted = true;
+      if (aborted) return 0;
+      int mark = position.mark();
+      engine.playTurn(reply >>> 16, reply & 0xffff);
+      int score = afterTurn(depth, ply, alpha);
+      position.undo(mark);
+      if (aborted) return 0;
+      if (score < best) {
+        best = score;
+        bestMove = reply;
+        if (best <= alpha) break;
+      }
+    }
+    table.store(hash, depth, best, best <= alpha ? TranspositionTable.UPPER_BOUND : TranspositionTable.EXACT, bestMove);
+    return best;
+  }
+
+  /**
+   * Scores the position after a player reply and the enemy moves, the enemies plan greedily for deeper turns.
+   */
+  private int afterTurn(int depth, int ply, int alpha) {
+    switch (engine.outcome()) {
+      case LOST:
+        return WIN - ply;
+      case WON:
+        return -WIN + ply;
+      default:
+        break;
+    }
+    if (depth == 1) return evaluate();
+    position.clearIntentions();
+    greedy.planIntentions(engine);
+    return playerToMove(depth - 1, ply + 1, alpha);
+  }
+
+  /**
+   * Collects the legal player replies of the current position into {@link #replies}, the hash move first and
+   * pushes before quiet moves.
+   *
+   * @returns the number of replies.
+   */
+  private int generateReplies(int ply, int hashMove) {
+    int[] result = replies[ply];
+    int count = 0;
+    int pushes = 0;
+    boolean hasHashMove = false;
+    for (int index = 0; index < position.size(); index++) {
+      if (position.side(index) != Piece.Side.PLAYER) continue;
+      moves.clear();
+      engine.playerMoves(index, moves);
+      for (int dest = moves.nextSetBit(0); dest >= 0; dest = moves.nextSetBit(dest + 1)) {
+        if (count == result.length) result = replies[ply] = Arrays.copyOf(result, count * 2);
+        int reply = index << 16 | dest;
+        if (reply == hashMove) {
+          hasHashMove = true;
+        } else if (position.occupied().get(dest)) {
+          // Keep pushes in front of the quiet moves
+          result[count++] = result[pushes];
+          result[pushes++] = reply;
+        } else {
+          result[count++] = reply;
+        }
+      }
+    }
+    if (hasHashMove) {
+      if (count == result.length) result = replies[ply] = Arrays.copyOf(result, count * 2);
+      System.arraycopy(result, 0, result, 1, count++);
+      result[0] = hashMove;
+    }
+    return count;
+  }
+
+  /**
+   * Fills `result` with the greedy move of each of the {@link #enemies}.
+   */
+  private void greedyPlan(int[] result) {
+    int king = GreedyPolicy.findPlayerKing(position);
+    for (int i = 0; i < enemyCount; i++) {
+      result[i] = greedy.move(engine, enemies[i], king);
+    }
+  }
+
+  /**
+   * Scores a running game from the enemy's point of view: material, closeness to the player king and threats
+   * against it.
+   */
+  private int evaluate() {
+    int king = GreedyPolicy.findPlayerKing(position);
+    int score = PIECE_VALUE * (position.count(Piece.Side.ENEMY) - position.count(Piece.Side.PLAYER));
+    for (int index = 0; index < position.size(); index++) {
+      if (position.side(index) != Piece.Side.ENEMY) continue;
+      score -= 10 * distance(position.square(index), king);
+      attacks.clear();
+      engine.enemyMoves(index, attacks);
+      if (attacks.get(king)) score += 100;
+    }
+    return score;
+  }
+
+  private int distance(int a, int b) {
+    return GreedyPolicy.distance(position.dim, a, b);
+  }
+}
@@ -0,0 +1,108 @@
+package rook.core;
+
+import static rook.core.Direction.*;
+
+/**
+ * Precomputed rook and bishop attacks for 8x8 {@link Bitboard}s.
+ * <p>
+ * Every line through a square (row, column, diagonal and anti-diagonal) has at most six inner squares whose
+ * occupancy matters, the edge squares are always included in the attacks. The occupancy of these inner squares is
+ * gathered into a 6 bit index, either by a plain shift (rows) or by a multiplication that moves each square of the
+ * line into a distinct bit of the top byte (columns and diagonals). The index then selects the precomputed attacks
+ * of that line, so a slider lookup is two table reads regardless of the board state.
+ */
+final class SlidingAttacks {
+
+  private SlidingAttacks() {}
+
+  private static final int ROW = 0;
+  private static final int COLUMN = 1;
+  private static final int DIAGONAL = 2;
+  private static final int ANTI_DIAGONAL = 3;
+
+  /**
+   * Squares with y in 1..6 on the column x == 0
+   */
+  private static final long COLUMN_INNER = 0x0001010101010100L;
+  /**
+   * Moves the squares of {@link #COLUMN_INNER} into bits 58..63
+   */
+  private static final long COLUMN_MAGIC = 0x0004081020408000L;
+  /**
+   * Moves squares with distinct x in 1..6 into bits 58..63
+   */
+  private static final long DIAGONAL_MAGIC = 0x0202020202020202L;
+
+  /**
+   * Maps line -> square -> inner squares of that line
+   */
+  private static final long[][] INNER = new long[4][Bitboard.SQUARES];
+  /**
+   * Maps line -> (square << 6 | occupancy index) -> attacks along that line
+   */
+  private static final long[][] ATTACKS = new long[4][Bitboard.SQUARES << 6];
+
+  static {
+    for (int square = 0; square < Bitboard.SQUARES; square++) {
+      int x = square % Bitboard.WIDTH;
+      int y = square / Bitboard.WIDTH;
+      INNER[ROW][square] = 0x7eL << (y * Bitboard.WIDTH);
+      INNER[COLUMN][square] = COLUMN_INNER << x;
+      INNER[DIAGONAL][square] = line(square, UP_LEFT, DOWN_RIGHT) & Bitboard.NOT_LEFT_EDGE & Bitboard.NOT_RIGHT_EDGE;
+      INNER[ANTI_DIAGONAL][square] = line(square, UP_RIGHT, DOWN_LEFT) & Bitboard.NOT_LEFT_EDGE & Bitboard.NOT_RIGHT_EDGE;
+      initLine(ROW, square, LEFT, RIGHT);
+      initLine(COLUMN, square, UP, DOWN);
+      initLine(DIAGONAL, square, UP_LEFT, DOWN_RIGHT);
+      initLine(ANTI_DIAGONAL, square, UP_RIGHT, DOWN_LEFT);
+    }
+  }
+
+  private static long line(int square, Direction dir, Direction opposite) {
+    return Bitboard.ray(square, dir) | Bitboard.ray(square, opposite) | Bitboard.bit(square);
+  }
+
+  /**
+   * Enumerates all occupancies of the inner squares and stores the attacks found by sliding.
+   */
+  private static void initLine(int line, int square, Direction dir, Direction opposite) {
+    long inner = INNER[line][square];
+    long from = Bitboard.bit(square);
+    long occupancy = 0L;
+    do {
+      long empty = ~occupancy;
+      ATTACKS[line][square << 6 | index(line, square, occupancy)] =
+              Bitboard.slide(from, dir, empty) | Bitboard.slide(from, opposite, empty);
+      // Carry-Rippler trick to visit all subsets of `inner`
+      occupancy = (occupancy - inner) & inner;
+    } while (occupancy != 0);
+  }
+
+  private static int index(int line, int square, long occupancy) {
+    switch (line) {
+      case ROW:
+        return (int) ((occupancy >>> ((square & ~7) + 1)) & 63);
+      case COLUMN:
+        return (int) ((((occupancy >>> (square & 7)) & COLUMN_INNER) * COLUMN_MAGIC) >>> 58);
+      default:
+        return (int) (((occupancy & INNER[line][square]) * DIAGONAL_MAGIC) >>> 58);
+    }
+  }
+
+  private static long attacks(int line, int square, long occupancy) {
+    return ATTACKS[line][square << 6 | index(line, square, occupancy)];
+  }
+
+  /**
+   * @returns all squares a rook on `square` attacks, including the first occupied square in each direction.
+   */
+  static long rook(int square, long occupancy) {
+    return attacks(ROW, square, occupancy) | attacks(COLUMN, square, occupancy);
+  }
+
+  /**
+   * @returns all squares a bishop on `square` attacks, including the first occupied square in each direction.
+   */
+  static long bishop(int square, long occupancy) {
+    return attacks(DIAGONAL, square, occupancy) | attacks(ANTI_DIAGONAL, square, occupancy);
+  }
+}
@@ -0,0 +1,148 @@
+package rook.core;
+
+import pythagoras.i.Dimension;
+
+import java.util.BitSet;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Saves a position and the state of its {@link Rng} into a compact binary snapshot, e.g. to suspend a game or to
+ * cache positions on a server.
+ * <p>
+ * The layout is fixed, numbers are big endian: the int {@link #MAGIC}, the board width and height as shorts, the next
+ * piece id as int and the random state as long, then the pieces as an int count followed by id int, side << 4 | type
+ * byte and square short, the fog as one bit per square, and the intentions as an int count followed by piece id int,
+ * direction byte and length short.
+ */
+public final class Snapshot {
+
+  /**
+   * "RKS1"
+   */
+  static final int MAGIC = 0x524b5331;
+
+  private static final Piece.Side[] SIDES = Piece.Side.values();
+  private static final Piece.Type[] TYPES = Piece.Type.values();
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private Snapshot() {}
+
+  public static byte[] write(Position position, Rng rng) {
+    int squareCount = position.squareCount();
+    ByteSink sink = new ByteSink(32 + position.size() * 7 + (squareCount + 7) / 8 + position.intentionCount() * 7);
+    sink.writeInt(MAGIC);
+    sink.writeShort(position.dim.width());
+    sink.writeShort(position.dim.height());
+    sink.writeInt(position.nextPieceId());
+    sink.writeLong(rng.state());
+    sink.writeInt(position.size());
+    for (int index = 0; index < position.size(); index++) {
+      sink.writeInt(position.id(index));
+      sink.writeByte(position.side(index).ordinal() << 4 | position.type(index).ordinal());
+      sink.writeShort(position.square(index));
+    }
+    BitSet fog = position.fog();
+    for (int square = 0; square < squareCount; square += 8) {
+      int bits = 0;
+      for (int bit = 0; bit < 8; bit++) {
+        if (fog.get(square + bit)) bits |= 1 << bit;
+      }
+      sink.writeByte(bits);
+    }
+    sink.writeInt(position.intentionCount());
+    for (int i = 0; i < position.intentionCount(); i++) {
+      sink.writeInt(position.intentionPieceId(i));
+      sink.writeByte(position.intentionDir(i).ordinal());
+      sink.writeShort(position.intentionLength(i));
+    }
+    return sink.toByteArray();
+  }
+
+  /**
+   * Restores `rng` to the saved state. The snapshot is validated before, so `rng` is unchanged if it is not valid.
+   *
+   * @returns a new position without listener and undo history, e.g. to {@link Position#set} another position to.
+   * @throws IllegalArgumentException if `bytes` is not a valid snapshot
+   */
+  public static Position read(byte[] bytes, Rng rng) {
+    Reader reader = new Reader(bytes);
+    checkArgument(bytes.length >= 4 && reader.readInt() == MAGIC, "not a snapshot");
+    int width = reader.readShort();
+    int height = reader.readShort();
+    // A position allocates per square, so a corrupt size must not get that far
+    checkArgument(width > 0 && height > 0 && ((long) width * height + 7) / 8 <= bytes.length,
+            "invalid board size: %sx%s", width, height);
+    Position position = new Position(new Dimension(width, height), false);
+    int squareCount = position.squareCount();
+    int nextPieceId = reader.readInt();
+    long rngState = reader.readLong();
+    int size = reader.readInt();
+    for (int i = 0; i < size; i++) {
+      int id = reader.readInt();
+      int sideAndType = reader.readByte();
+      int square = reader.readShort();
+      checkArgument(id >= 0 && id < nextPieceId, "invalid piece id: %s", id);
+      checkArgument(position.indexOf(id) < 0, "duplicate piece id: %s", id);
+      checkArgument(sideAndType >> 4 < SIDES.length && (sideAndType & 0xf) < TYPES.length, "invalid piece: %s",
+              sideAndType);
+      checkArgument(square < squareCount && !position.occupied().get(square), "invalid square: %s", square);
+      position.addPiece(id, SIDES[sideAndType >> 4], TYPES[sideAndType & 0xf], square);
+    }
+    position.setNextPieceId(nextPieceId);
+    BitSet fog = new BitSet();
+    for (int square = 0; square < squareCount; square += 8) {
+      int bits = reader.readByte();
+      for (int bit = 0; bits != 0; bit++, bits >>>= 1) {
+        if ((bits & 1) != 0) fog.set(square + bit);
+      }
+    }
+    position.setFog(fog);
+    int intentionCount = reader.readInt();
+    int maxLength = Math.max(width, height);
+    for (int i = 0; i < intentionCount; i++) {
+      int pieceId = reader.readInt();
+      int dir = reader.readByte();
+      int length = reader.readShort();
+      int index = position.indexOf(pieceId);
+      checkArgument(index >= 0 && position.side(index) == Piece.Side.ENEMY, "invalid intention piece: %s", pieceId);
+      checkArgument(dir < DIRECTIONS.length, "invalid direction: %s", dir);
+      checkArgument(length > 0 && length <= maxLength, "invalid intention length: %s", length);
+      position.addIntention(pieceId, DIRECTIONS[dir], length);
+    }
+    checkArgument(reader.remaining() == 0, "trailing bytes after snapshot");
+    position.clearHistory();
+    rng.setState(rngState);
+    return position;
+  }
+
+  private static final class Reader {
+    private final byte[] bytes;
+    private int offset;
+
+    Reader(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    int readByte() {
+      checkArgument(offset < bytes.length, "truncated snapshot");
+      return bytes[offset++] & 0xff;
+    }
+
+    int remaining() {
+      return bytes.length - offset;
+    }
+
+    int readShort() {
+      return readByte() << 8 | readByte();
+    }
+
+    int readInt() {
+      return readShort() << 16 | readShort();
+    }
+
+    long readLong() {
+      return (long) readInt() << 32 | readInt() & 0xffffffffL;
+    }
+  }
+}
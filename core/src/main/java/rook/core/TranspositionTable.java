@@ -0,0 +1,105 @@
+package rook.core;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A fixed size hash table of search results keyed by {@link Position#hash()}.
+ * <p>
+ * Each position hash maps to exactly one slot. A new entry replaces the slot's entry if that one is from an earlier
+ * search or was searched less deep, so the expensive results of the current search are kept. Entries live in
+ * parallel arrays, storing and probing does not allocate.
+ */
+public final class TranspositionTable {
+
+  /**
+   * The stored score is exact
+   */
+  public static final int EXACT = 0;
+  /**
+   * The real score is at least the stored score
+   */
+  public static final int LOWER_BOUND = 1;
+  /**
+   * The real score is at most the stored score
+   */
+  public static final int UPPER_BOUND = 2;
+
+  private final int mask;
+  private final long[] keys;
+  /**
+   * Stored depth + 1, 0 for empty slots
+   */
+  private final int[] depths;
+  private final int[] scores;
+  private final byte[] bounds;
+  private final int[] moves;
+  private final int[] generations;
+  private int generation;
+
+  /**
+   * @param sizeLog2 the table holds 2^sizeLog2 entries
+   */
+  public TranspositionTable(int sizeLog2) {
+    checkArgument(sizeLog2 >= 0 && sizeLog2 <= 28, "sizeLog2 out of range: %s", sizeLog2);
+    int size = 1 << sizeLog2;
+    this.mask = size - 1;
+    this.keys = new long[size];
+    this.depths = new int[size];
+    this.scores = new int[size];
+    this.bounds = new byte[size];
+    this.moves = new int[size];
+    this.generations = new int[size];
+  }
+
+  public int capacity() { return keys.length; }
+
+  /**
+   * Starts a new search, older entries are replaced even by shallower ones.
+   */
+  public void newSearch() {
+    generation++;
+  }
+
+  public void clear() {
+    Arrays.fill(depths, 0);
+    generation = 0;
+  }
+
+  private int slot(long hash) {
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  /**
+   * @returns the slot holding `hash` or -1 if the table has no entry for it.
+   */
+  public int probe(long hash) {
+    int slot = slot(hash);
+    return depths[slot] > 0 && keys[slot] == hash ? slot : -1;
+  }
+
+  public int depth(int slot) { return depths[slot] - 1; }
+  public int score(int slot) { return scores[slot]; }
+  public int bound(int slot) { return bounds[slot]; }
+  public int move(int slot) { return moves[slot]; }
+
+  /**
+   * Stores a search result unless the slot holds a deeper result of the current search.
+   *
+   * @returns whether the entry was stored.
+   */
+  public boolean store(long hash, int depth, int score, int bound, int move) {
+    int slot = slot(hash);
+    if (generations[slot] == generation && depths[slot] > depth + 1) {
+      return false;
+    }
+    keys[slot] = hash;
+    depths[slot] = depth + 1;
+    scores[slot] = score;
+    bounds[slot] = (byte) bound;
+    moves[slot] = move;
+    generations[slot] = generation;
+    return true;
+  }
+}
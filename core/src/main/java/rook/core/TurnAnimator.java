@@ -0,0 +1,82 @@
+package rook.core;
+
+import playn.core.Clock;
+import tripleplay.anim.Animator;
+
+/**
+ * Drives an {@link Animator} whose animations are queued in steps, e.g. one step per move of a turn, so that they
+ * never hold up the game. The state changes right away and the animations only catch up with it: the more steps are
+ * queued the faster they play, and {@link #finish()} completes all of them at once, e.g. on new input.
+ */
+class TurnAnimator {
+
+  /**
+   * Up to this many queued steps play at normal speed, more play proportionally faster
+   */
+  private static final int RELAXED_STEPS = 2;
+  /**
+   * Longer than any queued animation, so that every paint while finishing completes one
+   */
+  private static final int FINISH_MILLIS = 10_000;
+  /**
+   * Guards against animations that never complete
+   */
+  private static final int MAX_FINISH_PAINTS = 1000;
+
+  private final Animator anim;
+  private final Clock clock = new Clock();
+  private double time;
+  /**
+   * The steps that have not started yet
+   */
+  private int pendingSteps;
+  private boolean finished;
+
+  TurnAnimator(Animator anim) {
+    this.anim = anim;
+  }
+
+  /**
+   * Ends the step of the animations queued since the last step, the next ones start when they are done.
+   */
+  void endStep() {
+    pendingSteps++;
+    anim.action(() -> pendingSteps--);
+    anim.addBarrier();
+  }
+
+  int pendingSteps() { return pendingSteps; }
+
+  /**
+   * Advances the animations by a frame of `dt` milliseconds, faster if steps are backing up.
+   */
+  void paint(int dt) {
+    paintAt(time + dt * Math.max(1f, pendingSteps / (float) RELAXED_STEPS));
+  }
+
+  /**
+   * Completes all queued animations. Then nothing refers to the time anymore and the clock starts over, so that the
+   * jumps while finishing don't add up.
+   */
+  void finish() {
+    finished = false;
+    anim.addBarrier();
+    anim.action(() -> finished = true);
+    for (int i = 0; i < MAX_FINISH_PAINTS && !finished; i++) {
+      paintAt(time + FINISH_MILLIS);
+    }
+    if (finished) {
+      time = 0;
+      clock.tick = 0;
+      clock.dt = 0;
+    }
+  }
+
+  private void paintAt(double newTime) {
+    int tick = (int) newTime;
+    clock.dt = tick - clock.tick;
+    clock.tick = tick;
+    time = newTime;
+    anim.onPaint.onEmit(clock);
+  }
+}
@@ -0,0 +1,57 @@
+package rook.core;
+
+/**
+ * Zobrist keys for {@link Position#hash()}.
+ * <p>
+ * The hash of a position is the XOR of the keys of its pieces, fogged squares and intentions, so it can be updated
+ * incrementally by XOR-ing keys in and out. Intentions refer to their piece by id, so the piece keys include the id
+ * and the intention keys include their place in the list, which is the order they are executed in. Instead of tables
+ * of random numbers the keys are derived by mixing the feature into a 64 bit value, which works for any board size
+ * and needs no initialization.
+ */
+final class Zobrist {
+
+  private Zobrist() {}
+
+  private static final long PIECE = 0x9e3779b97f4a7c15L;
+  private static final long FOG = 0xc2b2ae3d27d4eb4fL;
+  private static final long INTENTION = 0x165667b19e3779f9L;
+
+  /**
+   * The splitmix64 finalizer, every input bit affects every output bit.
+   */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  static long piece(int id, Piece.Side side, Piece.Type type, int square) {
+    return mix(PIECE + (((long) id << 40 | (long) square << 8 | side.ordinal() << 4 | type.ordinal()) * INTENTION));
+  }
+
+  static long fog(int square) {
+    return mix(FOG + square * PIECE);
+  }
+
+  static long intention(int i, int pieceId, Direction dir, int moveLength) {
+    return mix(INTENTION + (((long) i << 48 | (long) pieceId << 16 | moveLength << 4 | dir.ordinal()) * FOG));
+  }
+
+  /**
+   * Computes the hash of `position` from scratch.
+   */
+  static long hash(Position position) {
+    long result = 0L;
+    for (int index = 0; index < position.size(); index++) {
+      result ^= piece(position.id(index), position.side(index), position.type(index), position.square(index));
+    }
+    for (int square = position.fog().nextSetBit(0); square >= 0; square = position.fog().nextSetBit(square + 1)) {
+      result ^= fog(square);
+    }
+    for (int i = 0; i < position.intentionCount(); i++) {
+      result ^= intention(i, position.intentionPieceId(i), position.intentionDir(i), position.intentionLength(i));
+    }
+    return result;
+  }
+}
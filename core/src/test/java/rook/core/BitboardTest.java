@@ -0,0 +1,55 @@
+package rook.core;
+
+import org.junit.jupiter.api.Test;
+import pythagoras.i.Dimension;
+import pythagoras.i.IDimension;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static rook.core.BitSetUtils.newBitSet;
+
+public class BitboardTest {
+
+  private final IDimension dim = new Dimension(8, 8);
+
+  @Test
+  void rookShouldNotMoveOnOccupiedSquareWithCapture() {
+    long moves = PieceMoves.rookMoves(0, Bitboard.fromBitSet(newBitSet(2, 16)), Bitboard.fromBitSet(newBitSet(2)));
+    assertEquals(newBitSet(1, 8), Bitboard.toBitSet(moves, new BitSet()));
+  }
+
+  @Test
+  void shiftShouldNotWrapAroundEdges() {
+    assertEquals(0L, Bitboard.shift(Bitboard.bit(7), Direction.RIGHT));
+    assertEquals(0L, Bitboard.shift(Bitboard.bit(8), Direction.LEFT));
+    assertEquals(0L, Bitboard.shift(Bitboard.bit(15), Direction.UP_RIGHT));
+    assertEquals(0L, Bitboard.shift(Bitboard.bit(56), Direction.DOWN));
+  }
+
+  @Test
+  void movesShouldMatchBitSetMoves() {
+    Random random = new Random(42);
+    for (int run = 0; run < 200; run++) {
+      long blocked = random.nextLong() & random.nextLong();
+      long captures = random.nextLong() & random.nextLong() & ~blocked;
+      BitSet blockedSet = Bitboard.toBitSet(blocked, new BitSet());
+      BitSet capturesSet = Bitboard.toBitSet(captures, new BitSet());
+      for (Piece.Type type : Piece.Type.values()) {
+        for (int pos = 0; pos < Bitboard.SQUARES; pos++) {
+          BitSet expected = PieceMoves.moves(dim, type, pos, blockedSet, capturesSet, new BitSet());
+          long moves = PieceMoves.moves(type, pos, blocked, captures);
+          assertEquals(expected, Bitboard.toBitSet(moves, new BitSet()), type + " on " + pos);
+        }
+      }
+      for (Direction dir : Direction.values()) {
+        for (int pos = 0; pos < Bitboard.SQUARES; pos++) {
+          int length = 1 + random.nextInt(7);
+          int expected = PieceMoves.slideInDir(dim, pos, dir, blockedSet, capturesSet, length);
+          assertEquals(expected, PieceMoves.slideInDir(pos, dir, blocked, captures, length), dir + " from " + pos);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package rook.core;
+
+import org.junit.jupiter.api.Test;
+import pythagoras.i.Dimension;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static rook.core.Piece.Side.ENEMY;
+import static rook.core.Piece.Side.PLAYER;
+import static rook.core.Piece.Type.KING;
+import static rook.core.Piece.Type.ROOK;
+
+public class EngineTest {
+
+  private final Position position = new Position(new Dimension(8, 8), false);
+  private final Engine engine = new Engine(position, new Random(0));
+
+  @Test
+  void moveShouldPushChainOfPieces() {
+    int rook = engine.addPiece(PLAYER, ROOK, 0);
+    engine.addPiece(new Piece(1, ENEMY, KING, 2));
+    engine.addPiece(new Piece(2, ENEMY, KING, 3));
+    assertTrue(engine.tryPlayerMove(rook, 2));
+    assertEquals(2, position.square(position.indexOf(0)));
+    assertEquals(3, position.square(position.indexOf(1)));
+    assertEquals(4, position.square(position.indexOf(2)));
+  }
+
+  @Test
+  void moveShouldPushPieceOverBoard() {
+    int rook = engine.addPiece(new Piece(0, PLAYER, ROOK, 5));
+    engine.addPiece(new Piece(1, ENEMY, KING, 7));
+    assertTrue(engine.tryPlayerMove(rook, 7));
+    assertEquals(-1, position.indexOf(1));
+    assertEquals(0, position.count(ENEMY));
+    assertEquals(7, position.square(position.indexOf(0)));
+  }
+
+  @Test
+  void moveShouldPushLongChainOverBoard() {
+    Position wide = new Position(new Dimension(64, 2), false);
+    Engine engine = new Engine(wide, new Random(0));
+    List<PieceMovedEvent> events = new ArrayList<>();
+    engine.setListener(events::add);
+    engine.addPiece(PLAYER, KING, 64);
+    int rook = engine.addPiece(PLAYER, ROOK, 0);
+    for (int square = 2; square < 64; square++) {
+      engine.addPiece(ENEMY, KING, square);
+    }
+    assertTrue(engine.playTurn(rook, 2));
+    assertEquals(61, wide.count(ENEMY));
+    for (int square = 2; square < 64; square++) {
+      assertTrue(wide.occupied().get(square));
+    }
+    assertEquals(62, events.get(0).consequences.size());
+    assertTrue(events.get(0).consequences.get(61) instanceof PiecePushedOverBoard);
+  }
+
+  @Test
+  void fogShouldBlockPlayerMoves() {
+    Position fogged = new Position(new Dimension(8, 8), true);
+    Engine engine = new Engine(fogged, new Random(0));
+    int rook = engine.addPiece(PLAYER, ROOK, 0);
+    assertFalse(fogged.fog().get(1));
+    assertTrue(fogged.fog().get(2));
+    assertFalse(engine.tryPlayerMove(rook, 2));
+    assertTrue(engine.tryPlayerMove(rook, 1));
+    assertFalse(fogged.fog().get(2));
+  }
+
+  @Test
+  void undoShouldRestorePosition() {
+    Position fogged = new Position(new Dimension(8, 8), true);
+    Engine engine = new Engine(fogged, new Random(0));
+    engine.addPiece(PLAYER, KING, 0);
+    int rook = engine.addPiece(PLAYER, ROOK, 6);
+    engine.addPiece(ENEMY, ROOK, 7);
+    engine.addPiece(ENEMY, KING, 63);
+    engine.makeIntentions();
+    String before = TestUtil.describe(fogged);
+    BitSet fogBefore = (BitSet) fogged.fog().clone();
+
+    int mark = fogged.mark();
+    // Pushes the enemy rook over the board and reveals squares
+    assertTrue(engine.tryPlayerMove(rook, 7));
+    assertEquals(1, fogged.count(ENEMY));
+    fogged.undo(mark);
+
+    assertEquals(before, TestUtil.describe(fogged));
+    assertEquals(fogBefore, fogged.fog());
+    for (int index = 0; index < fogged.size(); index++) {
+      assertEquals(index, fogged.indexAt(fogged.square(index)));
+      assertEquals(index, fogged.indexOf(fogged.id(index)));
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package rook.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FrameStatsTest {
+
+  @Test
+  void percentilesShouldCoverTheLastSamples() {
+    FrameStats stats = new FrameStats(10);
+    assertEquals(0f, stats.percentile(.5f));
+    for (int i = 1; i <= 20; i++) {
+      stats.add(i);
+    }
+    assertEquals(10, stats.count());
+    assertEquals(11f, stats.percentile(0f));
+    assertEquals(15f, stats.percentile(.5f));
+    assertEquals(20f, stats.percentile(.95f));
+    assertEquals(20f, stats.percentile(1f));
+  }
+}
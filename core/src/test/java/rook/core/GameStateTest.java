@@ -0,0 +1,107 @@
+package rook.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static rook.core.BitSetUtils.newBitSet;
+
+public class GameStateTest {
+
+  @Test
+  void moveShouldRevealFogInOneBatch() {
+    GameState state = new GameState(new Rng(0), TestUtil.NO_LOG, true);
+    state.addPiece(Piece.Side.PLAYER, Piece.Type.ROOK, 0);
+    List<BitSet> revealed = new ArrayList<>();
+    List<BitSet> added = new ArrayList<>();
+    List<BitSet> blocked = new ArrayList<>();
+    state.fogRevealed.connect(squares -> revealed.add((BitSet) squares.clone()));
+    state.fogAdded.connect(squares -> added.add((BitSet) squares.clone()));
+    state.blockedSquaresForPlayer.connect(squares -> blocked.add(squares));
+
+    assertTrue(state.tryMoveSelectedPiece(state.pieces.get(0), 1));
+    assertEquals(1, revealed.size());
+    assertEquals(newBitSet(2, 10), revealed.get(0));
+    assertEquals(1, blocked.size());
+    assertFalse(state.fog.get().get(10));
+
+    assertTrue(state.undoLastTurn());
+    assertEquals(1, added.size());
+    assertEquals(newBitSet(2, 10), added.get(0));
+    assertTrue(state.fog.get().get(10));
+    assertEquals(2, blocked.size());
+  }
+
+  @Test
+  void playerMovesShouldOnlyBeRecomputedWhenTheirRaysChange() {
+    GameState state = new GameState(new Rng(0), TestUtil.NO_LOG, false);
+    state.addPiece(Piece.Side.PLAYER, Piece.Type.ROOK, 0);
+    state.addPiece(Piece.Side.PLAYER, Piece.Type.BISHOP, 63);
+    TestUtil.CountingMetrics metrics = new TestUtil.CountingMetrics();
+    state.setMetrics(metrics);
+    int rook = state.pieces.get(0).id;
+    int bishop = state.pieces.get(1).id;
+    assertEquals(14, state.playerMoves(rook).cardinality());
+    assertEquals(7, state.playerMoves(bishop).cardinality());
+    assertEquals(2, metrics.get(Metrics.Counter.MOVE_GENERATIONS));
+
+    // Off the rook's rays, on the bishop's
+    state.addPiece(Piece.Side.ENEMY, Piece.Type.KING, 27);
+    assertEquals(14, state.playerMoves(rook).cardinality());
+    assertEquals(2, metrics.get(Metrics.Counter.MOVE_GENERATIONS));
+    assertEquals(newBitSet(27, 36, 45, 54), state.playerMoves(bishop));
+    assertEquals(3, metrics.get(Metrics.Counter.MOVE_GENERATIONS));
+
+    // On the rook's ray
+    state.addPiece(Piece.Side.ENEMY, Piece.Type.KING, 3);
+    assertEquals(newBitSet(1, 2, 3, 8, 16, 24, 32, 40, 48, 56), state.playerMoves(rook));
+    assertEquals(newBitSet(27, 36, 45, 54), state.playerMoves(bishop));
+    assertEquals(4, metrics.get(Metrics.Counter.MOVE_GENERATIONS));
+  }
+
+  @Test
+  void derivedSquaresShouldChangeOncePerMove() {
+    GameState state = new GameState(new Rng(0), TestUtil.NO_LOG, false);
+    state.addPiece(Piece.Side.PLAYER, Piece.Type.KING, 63);
+    state.addPiece(Piece.Side.PLAYER, Piece.Type.ROOK, 0);
+    state.addPiece(Piece.Side.ENEMY, Piece.Type.ROOK, 2);
+    state.addPiece(Piece.Side.ENEMY, Piece.Type.ROOK, 3);
+    state.setEnemyPolicy(engine -> {});
+    TestUtil.CountingMetrics metrics = new TestUtil.CountingMetrics();
+    state.setMetrics(metrics);
+    List<BitSet> seen = new ArrayList<>();
+    state.pieceSquares.connect(squares -> seen.add((BitSet) squares.clone()));
+
+    // Pushes both enemies, the listener sees the squares after the whole push chain
+    assertTrue(state.tryMoveSelectedPiece(state.pieces.get(1), 2));
+    assertEquals(1, seen.size());
+    assertEquals(newBitSet(2, 3, 4, 63), seen.get(0));
+    assertEquals(1, metrics.get(Metrics.Counter.DERIVED_RECOMPUTATIONS));
+    // Nobody listens to the blocked squares, they are only computed when read
+    assertEquals(new BitSet(), state.blockedSquaresForPlayer.get());
+    assertEquals(2, metrics.get(Metrics.Counter.DERIVED_RECOMPUTATIONS));
+    assertEquals(newBitSet(2, 3, 4, 63), state.pieceSquares.get());
+    assertEquals(2, metrics.get(Metrics.Counter.DERIVED_RECOMPUTATIONS));
+  }
+
+  @Test
+  void restoreShouldStopTheJournal() {
+    GameState state = new GameState(new Rng(0), TestUtil.NO_LOG, false);
+    Levels.setup(2, state::addPiece);
+    byte[] snapshot = state.snapshot();
+    JournalWriter journal = new JournalWriter(state.position);
+    state.setJournal(journal);
+    assertTrue(TestUtil.playRandomMove(state, new Random(1)));
+    assertEquals(1, journal.turn());
+
+    state.restore(snapshot);
+    assertTrue(TestUtil.playRandomMove(state, new Random(1)));
+    assertEquals(1, journal.turn());
+  }
+}
@@ -0,0 +1,66 @@
+package rook.core;
+
+import org.junit.jupiter.api.Test;
+import pythagoras.i.Dimension;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IntentionPathsTest {
+
+  @Test
+  void pathsShouldFollowPushes() {
+    GameState state = new GameState(new Rng(3), TestUtil.NO_LOG, new Dimension(16, 16), false);
+    Levels.setupArena(state.dim, 12, new Random(4), state::addPiece);
+    IntentionPaths paths = new IntentionPaths(state);
+    state.pieceMoved.connect(e -> {
+      paths.update();
+      assertPathsMatch(state, paths);
+    });
+    Random random = new Random(5);
+    Engine engine = new Engine(state.position, new Random(0));
+    for (int turn = 0; turn < 40 && engine.outcome() == Engine.Outcome.RUNNING; turn++) {
+      if (!TestUtil.playRandomMove(state, random)) continue;
+      paths.update();
+      assertPathsMatch(state, paths);
+      if (turn % 5 == 4) {
+        assertTrue(state.undoLastTurn());
+        paths.update();
+        assertPathsMatch(state, paths);
+      }
+    }
+  }
+
+  @Test
+  void updateShouldOnlyRecalculateCrossedPaths() {
+    GameState state = new GameState(new Rng(0), TestUtil.NO_LOG, false);
+    state.addPiece(Piece.Side.PLAYER, Piece.Type.KING, 63);
+    state.addPiece(Piece.Side.ENEMY, Piece.Type.ROOK, 0);
+    IntentionPaths paths = new IntentionPaths(state);
+    state.moveIntentions.add(new MoveIntention(state.pieces.get(1).id, Direction.RIGHT, 7));
+    assertTrue(paths.update());
+    assertEquals(0, paths.from(0));
+    assertEquals(7, paths.dest(0));
+
+    state.addPiece(Piece.Side.PLAYER, Piece.Type.ROOK, 9);
+    assertFalse(paths.update());
+
+    state.addPiece(Piece.Side.PLAYER, Piece.Type.BISHOP, 4);
+    assertTrue(paths.update());
+    assertEquals(4, paths.dest(0));
+    assertPathsMatch(state, paths);
+  }
+
+  private static void assertPathsMatch(GameState state, IntentionPaths paths) {
+    assertEquals(state.moveIntentions.size(), paths.count());
+    for (int i = 0; i < paths.count(); i++) {
+      MoveIntention intention = state.moveIntentions.get(i);
+      int index = state.position.indexOf(intention.pieceId);
+      assertEquals(index >= 0 ? state.position.square(index) : -1, paths.from(i));
+      assertEquals(intention.calcDestSquare(state.position), paths.dest(i));
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package rook.core;
+
+import org.junit.jupiter.api.Test;
+import pythagoras.i.Dimension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JournalTest {
+
+  private final Position position = new Position(new Dimension(8, 8), true);
+  private final Engine engine = new Engine(position, new Random(1));
+  private final List<String> states = new ArrayList<>();
+
+  private JournalWriter play(int turns) {
+    Levels.setup(2, engine::addPiece);
+    engine.makeIntentions();
+    JournalWriter journal = new JournalWriter(position, 4);
+    engine.setListener(journal);
+    states.add(TestUtil.describe(position));
+    Random random = new Random(2);
+    for (int turn = 0; turn < turns && engine.outcome() == Engine.Outcome.RUNNING; turn++) {
+      if (TestUtil.playRandomMove(engine, random) < 0) continue;
+      journal.endTurn(position);
+      states.add(TestUtil.describe(position));
+    }
+    return journal;
+  }
+
+  @Test
+  void seekShouldRestoreEveryTurn() {
+    JournalWriter journal = play(30);
+    JournalReader reader = JournalReader.of(journal.toByteArray());
+    assertEquals(states.size() - 1, reader.turnCount());
+    // Seek backwards so that every seek starts from a keyframe again
+    for (int turn = reader.turnCount(); turn >= 0; turn--) {
+      assertEquals(states.get(turn), TestUtil.describe(reader.seek(turn)), "turn " + turn);
+    }
+  }
+
+  @Test
+  void undoneTurnsShouldBeDropped() {
+    JournalWriter journal = play(30);
+    int turn = journal.turn();
+    int length = journal.length();
+    journal.undoTurn();
+    assertEquals(turn - 1, journal.turn());
+    assertTrue(journal.length() < length);
+    JournalReader reader = JournalReader.of(journal.toByteArray());
+    assertEquals(turn - 1, reader.turnCount());
+    assertEquals(states.get(turn - 1), TestUtil.describe(reader.seek(turn - 1)));
+  }
+
+  @Test
+  void truncatedJournalShouldEndWithLastCompleteTurn() {
+    byte[] bytes = play(10).toByteArray();
+    JournalReader reader = JournalReader.of(Arrays.copyOf(bytes, bytes.length - 1));
+    assertTrue(reader.turnCount() < states.size() - 1);
+    assertEquals(states.get(reader.turnCount()), TestUtil.describe(reader.seek(reader.turnCount())));
+  }
+}
@@ -0,0 +1,38 @@
+package rook.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LevelGeneratorTest {
+
+  private final LevelGenerator.Config config = new LevelGenerator.Config();
+
+  @Test
+  void generatedLevelShouldBeWonBySolution() {
+    LevelGenerator.Result result = new LevelGenerator(config).generate(new Random(1));
+    int length = result.solution.length();
+    assertTrue(length >= config.minMoves && length <= config.maxMoves, "length " + length);
+
+    Position position = new Position(config.dim, config.fog);
+    Engine engine = new Engine(position, new Random(0));
+    engine.setEnemyPolicy(EnemyPolicy.greedy());
+    result.level.setup(engine::addPiece);
+    for (int i = 0; i < length; i++) {
+      assertEquals(Engine.Outcome.RUNNING, engine.outcome());
+      assertTrue(engine.tryPlayerMove(position.indexOf(result.solution.pieceId(i)), result.solution.dest(i)));
+    }
+    assertEquals(Engine.Outcome.WON, engine.outcome());
+  }
+
+  @Test
+  void generatorShouldBeReproducible() {
+    Level a = new LevelGenerator(config).generate(new Random(7)).level;
+    Level b = new LevelGenerator(config).generate(new Random(7)).level;
+    assertEquals(a.toString(), b.toString());
+    assertEquals(a.toString(), Level.parse(a.toString()).toString());
+  }
+}
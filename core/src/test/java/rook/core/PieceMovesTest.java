@@ -1,6 +1,7 @@
 package rook.core;
 
 import org.junit.jupiter.api.Test;
+import de.cdietze.playn_util.PointUtils;
 import pythagoras.i.Dimension;
 import pythagoras.i.IDimension;
 
@@ -17,4 +18,17 @@ public class PieceMovesTest {
     BitSet moves = PieceMoves.rookMoves(dim, 0, newBitSet(2, 16), newBitSet(2), new BitSet());
     assertEquals(newBitSet(1, 8), moves);
   }
+
+  @Test
+  void bishopShouldSlideToTheBorderOfLargeBoard() {
+    IDimension large = new Dimension(256, 200);
+    int pos = PointUtils.toIndex(large, 10, 20);
+    BitSet moves = PieceMoves.bishopMoves(large, pos, new BitSet(), new BitSet(), new BitSet());
+    // Up left until x = 0, up right until y = 0, down right until y = 199, down left until x = 0
+    assertEquals(10 + 20 + 179 + 10, moves.cardinality());
+    assertEquals(PointUtils.toIndex(large, 189, 199), moves.previousSetBit(moves.length()));
+    assertEquals(PointUtils.toIndex(large, 30, 0), moves.nextSetBit(0));
+    assertEquals(PointUtils.toIndex(large, 0, 30),
+            PieceMoves.slideInDir(large, pos, Direction.DOWN_LEFT, new BitSet(), new BitSet(), 50));
+  }
 }
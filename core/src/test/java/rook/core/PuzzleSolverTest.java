@@ -0,0 +1,87 @@
+package rook.core;
+
+import org.junit.jupiter.api.Test;
+import pythagoras.i.Dimension;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static rook.core.Piece.Side.ENEMY;
+import static rook.core.Piece.Side.PLAYER;
+import static rook.core.Piece.Type.BISHOP;
+import static rook.core.Piece.Type.KING;
+import static rook.core.Piece.Type.ROOK;
+
+public class PuzzleSolverTest {
+
+  private final Position position = new Position(new Dimension(8, 8), false);
+  private final Engine engine = new Engine(position, new Random(0));
+  private final PuzzleSolver solver = new PuzzleSolver();
+
+  @Test
+  void solverShouldFindPushOverBoard() {
+    engine.addPiece(PLAYER, KING, 56);
+    int rook = engine.addPiece(PLAYER, ROOK, 3);
+    engine.addPiece(ENEMY, KING, 7);
+    PuzzleSolver.Solution solution = solver.solve(position, 3);
+    assertEquals(PuzzleSolver.Status.SOLVED, solution.status);
+    assertEquals(1, solution.length());
+    assertEquals(position.id(rook), solution.pieceId(0));
+    assertEquals(7, solution.dest(0));
+  }
+
+  @Test
+  void solverShouldFindShortestLine() {
+    engine.addPiece(PLAYER, KING, 56);
+    engine.addPiece(PLAYER, ROOK, 11);
+    engine.addPiece(ENEMY, KING, 7);
+    PuzzleSolver.Solution solution = solver.solve(position, 4);
+    assertEquals(PuzzleSolver.Status.SOLVED, solution.status);
+    assertEquals(2, solution.length());
+
+    // Replaying the solution against the same enemies wins
+    engine.setEnemyPolicy(EnemyPolicy.greedy());
+    for (int i = 0; i < solution.length(); i++) {
+      engine.tryPlayerMove(position.indexOf(solution.pieceId(i)), solution.dest(i));
+    }
+    assertEquals(Engine.Outcome.WON, engine.outcome());
+  }
+
+  @Test
+  void solverShouldProveThereIsNoWin() {
+    engine.addPiece(PLAYER, KING, 0);
+    engine.addPiece(ENEMY, KING, 36);
+    assertEquals(PuzzleSolver.Status.UNSOLVABLE, solver.solve(position, 1).status);
+  }
+
+  @Test
+  void solverShouldHandleBigPositions() {
+    Levels.setup(2, engine::addPiece);
+    engine.setEnemyPolicy(EnemyPolicy.greedy());
+    engine.makeIntentions();
+    assertNotEquals(PuzzleSolver.Status.GAVE_UP, solver.solve(position, 2).status);
+  }
+
+  @Test
+  void solverShouldSolveElevenPiecesWithinNodeBudget() {
+    engine.addPiece(PLAYER, KING, 0);
+    engine.addPiece(PLAYER, BISHOP, 1);
+    engine.addPiece(PLAYER, ROOK, 3);
+    engine.addPiece(PLAYER, ROOK, 8);
+    engine.addPiece(PLAYER, BISHOP, 9);
+    engine.addPiece(PLAYER, BISHOP, 16);
+    engine.addPiece(PLAYER, ROOK, 24);
+    engine.addPiece(PLAYER, ROOK, 59);
+    engine.addPiece(ENEMY, KING, 7);
+    engine.addPiece(ENEMY, BISHOP, 39);
+    engine.addPiece(ENEMY, KING, 63);
+    engine.setEnemyPolicy(EnemyPolicy.greedy());
+    engine.makeIntentions();
+    // About a tenth of a second, the winning line is 4 moves long
+    PuzzleSolver bounded = new PuzzleSolver(EnemyPolicy.greedy(), 50_000);
+    PuzzleSolver.Solution solution = bounded.solve(position, 5);
+    assertEquals(PuzzleSolver.Status.SOLVED, solution.status);
+    assertEquals(4, solution.length());
+  }
+}
@@ -0,0 +1,46 @@
+package rook.core;
+
+import org.junit.jupiter.api.Test;
+import pythagoras.i.Dimension;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static rook.core.Piece.Side.ENEMY;
+import static rook.core.Piece.Side.PLAYER;
+import static rook.core.Piece.Type.BISHOP;
+import static rook.core.Piece.Type.KING;
+import static rook.core.Piece.Type.ROOK;
+
+public class SearchPlannerTest {
+
+  @Test
+  void plannerShouldThreatenTwoPiecesAtOnce() {
+    Position position = new Position(new Dimension(8, 8), false);
+    Engine engine = new Engine(position, new Random(0));
+    engine.addPiece(PLAYER, KING, 35);
+    engine.addPiece(PLAYER, ROOK, 7);
+    engine.addPiece(PLAYER, BISHOP, 56);
+    // Each enemy rook can push one of the player pieces over the edge
+    engine.addPiece(ENEMY, ROOK, 5);
+    engine.addPiece(ENEMY, ROOK, 58);
+    SearchPlanner planner = new SearchPlanner(0, 20_000);
+    engine.setEnemyPolicy(planner);
+    engine.makeIntentions();
+    assertTrue(planner.lastDepth() >= 1);
+
+    // The player can only save one of them
+    BitSet moves = new BitSet();
+    for (int index = 0; index < 3; index++) {
+      moves.clear();
+      engine.playerMoves(index, moves);
+      for (int dest = moves.nextSetBit(0); dest >= 0; dest = moves.nextSetBit(dest + 1)) {
+        int mark = position.mark();
+        assertTrue(engine.playTurn(index, dest));
+        assertTrue(position.count(PLAYER) < 3, "after moving " + index + " to " + dest);
+        position.undo(mark);
+      }
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package rook.core;
+
+import org.junit.jupiter.api.Test;
+import pythagoras.i.Dimension;
+import react.RList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SnapshotTest {
+
+  @Test
+  void rngShouldRestoreItsSequence() {
+    Rng rng = new Rng(5);
+    Random random = new Random(5);
+    assertEquals(random.nextLong(), rng.nextLong());
+    long state = rng.state();
+    int a = rng.nextInt(1000);
+    rng.setState(state);
+    assertEquals(a, rng.nextInt(1000));
+  }
+
+  @Test
+  void restoredGameShouldContinueLikeOriginal() {
+    GameState original = new GameState(new Rng(1), TestUtil.NO_LOG, true);
+    Levels.setup(2, original::addPiece);
+    Random moves = new Random(2);
+    playTurns(original, moves, 3);
+    byte[] snapshot = original.snapshot();
+    Random replayMoves = new Random(3);
+    List<String> expected = playTurns(original, new Random(3), 10);
+
+    GameState restored = new GameState(new Rng(7), TestUtil.NO_LOG, true);
+    restored.restore(snapshot);
+    assertEquals(TestUtil.describe(snapshotPosition(snapshot)), TestUtil.describe(restored.position));
+    assertEquals(expected, playTurns(restored, replayMoves, 10));
+    assertEquals(original.pieces.toString(), restored.pieces.toString());
+    assertEquals(original.fog.get(), restored.fog.get());
+    assertEquals(original.pieceSquares.get(), restored.pieceSquares.get());
+    assertEquals(original.blockedSquaresForPlayer.get(), restored.blockedSquaresForPlayer.get());
+  }
+
+  @Test
+  void restoreShouldNotifyEachValueOnce() {
+    GameState original = new GameState(new Rng(1), TestUtil.NO_LOG, true);
+    Levels.setup(2, original::addPiece);
+    playTurns(original, new Random(2), 3);
+    byte[] snapshot = original.snapshot();
+
+    GameState restored = new GameState(new Rng(7), TestUtil.NO_LOG, true);
+    Levels.setup(1, restored::addPiece);
+    int oldPieces = restored.pieces.size();
+    int[] removed = {0};
+    int[] added = {0};
+    restored.pieces.connect(new RList.Listener<Piece>() {
+      @Override
+      public void onAdd(Piece piece) { added[0]++; }
+      @Override
+      public void onRemove(Piece piece) { removed[0]++; }
+    });
+    int[] pieceSquares = {0};
+    int[] fog = {0};
+    restored.pieceSquares.connect(squares -> pieceSquares[0]++);
+    restored.fog.connect(squares -> fog[0]++);
+
+    restored.restore(snapshot);
+    assertEquals(oldPieces, removed[0]);
+    assertEquals(original.pieces.size(), added[0]);
+    assertEquals(1, pieceSquares[0]);
+    assertEquals(1, fog[0]);
+  }
+
+  @Test
+  void invalidSnapshotShouldLeaveRngUnchanged() {
+    GameState original = new GameState(new Rng(1), TestUtil.NO_LOG, true);
+    Levels.setup(2, original::addPiece);
+    byte[] snapshot = original.snapshot();
+    Rng rng = new Rng(5);
+    long state = rng.state();
+
+    byte[] badSide = snapshot.clone();
+    // The side and type of the first piece
+    badSide[4 + 2 + 2 + 4 + 8 + 4 + 4] = (byte) 0xf0;
+    assertThrows(IllegalArgumentException.class, () -> Snapshot.read(badSide, rng));
+    byte[] badSize = snapshot.clone();
+    badSize[4] = badSize[6] = (byte) 0x7f;
+    assertThrows(IllegalArgumentException.class, () -> Snapshot.read(badSize, rng));
+    byte[] badId = snapshot.clone();
+    // The second piece gets the id of the first
+    System.arraycopy(badId, 24, badId, 24 + 7, 4);
+    assertThrows(IllegalArgumentException.class, () -> Snapshot.read(badId, rng));
+    byte[] truncated = Arrays.copyOf(snapshot, snapshot.length - 1);
+    assertThrows(IllegalArgumentException.class, () -> Snapshot.read(truncated, rng));
+    assertThrows(IllegalArgumentException.class, () -> Snapshot.read(intentionSnapshot(7, 1), rng));
+    assertThrows(IllegalArgumentException.class, () -> Snapshot.read(intentionSnapshot(1, 0), rng));
+    assertThrows(IllegalArgumentException.class, () -> Snapshot.read(intentionSnapshot(1, 65535), rng));
+    Snapshot.read(intentionSnapshot(1, 8), new Rng());
+    assertEquals(state, rng.state());
+  }
+
+  /**
+   * A player king with id 0 and an enemy rook with id 1 with the given intention.
+   */
+  private static byte[] intentionSnapshot(int pieceId, int moveLength) {
+    Position position = new Position(new Dimension(8, 8), false);
+    Engine engine = new Engine(position, new Random(0));
+    engine.addPiece(Piece.Side.PLAYER, Piece.Type.KING, 63);
+    engine.addPiece(Piece.Side.ENEMY, Piece.Type.ROOK, 0);
+    position.addIntention(pieceId, Direction.DOWN, moveLength);
+    return Snapshot.write(position, new Rng());
+  }
+
+  private static Position snapshotPosition(byte[] snapshot) {
+    return Snapshot.read(snapshot, new Rng());
+  }
+
+  private static List<String> playTurns(GameState state, Random random, int turns) {
+    List<String> result = new ArrayList<>();
+    for (int turn = 0; turn < turns; turn++) {
+      if (TestUtil.playRandomMove(state, random)) result.add(TestUtil.describe(state.position));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,95 @@
+package rook.core;
+
+import playn.core.Log;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Scaffolding shared by the tests.
+ */
+final class TestUtil {
+
+  private TestUtil() {}
+
+  static final Log NO_LOG = new Log() {
+    @Override
+    protected void logImpl(Level level, String msg, Throwable e) {}
+  };
+
+  /**
+   * @returns the index of a random player piece or -1 if there is none.
+   */
+  static int randomPlayerPiece(Position position, Random random) {
+    if (position.count(Piece.Side.PLAYER) == 0) return -1;
+    int index;
+    do {
+      index = random.nextInt(position.size());
+    } while (position.side(index) != Piece.Side.PLAYER);
+    return index;
+  }
+
+  /**
+   * Plays a turn in which a random player piece makes a random legal move.
+   *
+   * @returns the index of the piece << 16 | the dest, or -1 if the piece could not move.
+   */
+  static int playRandomMove(Engine engine, Random random) {
+    int index = randomPlayerPiece(engine.position, random);
+    if (index < 0) return -1;
+    int dest = BitSetUtils.randomElement(random, engine.playerMoves(index, new BitSet())).orElse(-1);
+    if (dest < 0) return -1;
+    assertTrue(engine.tryPlayerMove(index, dest));
+    return index << 16 | dest;
+  }
+
+  /**
+   * Like {@link #playRandomMove(Engine, Random)}, but through {@link GameState#tryMoveSelectedPiece}.
+   *
+   * @returns whether the piece could move.
+   */
+  static boolean playRandomMove(GameState state, Random random) {
+    int index = randomPlayerPiece(state.position, random);
+    if (index < 0) return false;
+    Piece piece = state.position.piece(index);
+    int dest = BitSetUtils.randomElement(random, state.playerMoves(piece.id)).orElse(-1);
+    if (dest < 0) return false;
+    assertTrue(state.tryMoveSelectedPiece(piece, dest));
+    return true;
+  }
+
+  /**
+   * @returns everything about `position` that equal positions share, to compare positions in assertions.
+   */
+  static String describe(Position position) {
+    StringBuilder result = new StringBuilder();
+    for (int index = 0; index < position.size(); index++) {
+      result.append(position.piece(index)).append(' ');
+    }
+    for (int i = 0; i < position.intentionCount(); i++) {
+      result.append(position.intention(i)).append(' ');
+    }
+    return result.append(position.playerSquares()).append(position.enemySquares()).append(position.occupied())
+            .append(' ').append(position.fog()).append(' ').append(position.nextPieceId())
+            .append(' ').append(position.hash()).toString();
+  }
+
+  /**
+   * Sums up the counters and ignores the timers.
+   */
+  static final class CountingMetrics implements Metrics {
+    private final int[] counts = new int[Counter.values().length];
+
+    @Override
+    public void count(Counter counter, int amount) {
+      counts[counter.ordinal()] += amount;
+    }
+
+    @Override
+    public void time(Timer timer, long nanos) {}
+
+    int get(Counter counter) { return counts[counter.ordinal()]; }
+  }
+}
@@ -0,0 +1,107 @@
+package rook.core;
+
+import org.junit.jupiter.api.Test;
+import pythagoras.i.Dimension;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static rook.core.Piece.Side.ENEMY;
+import static rook.core.Piece.Side.PLAYER;
+import static rook.core.Piece.Type.BISHOP;
+import static rook.core.Piece.Type.ROOK;
+
+public class ZobristTest {
+
+  @Test
+  void hashShouldMatchRecomputedHashDuringGame() {
+    Position position = new Position(new Dimension(8, 8), true);
+    Engine engine = new Engine(position, new Random(1));
+    Levels.setup(1, engine::addPiece);
+    engine.makeIntentions();
+    Random random = new Random(2);
+    for (int turn = 0; turn < 50 && engine.outcome() == Engine.Outcome.RUNNING; turn++) {
+      long before = position.hash();
+      int mark = position.mark();
+      int move = TestUtil.playRandomMove(engine, random);
+      if (move < 0) break;
+      assertEquals(Zobrist.hash(position), position.hash());
+      position.undo(mark);
+      assertEquals(before, position.hash());
+      assertEquals(Zobrist.hash(position), position.hash());
+      engine.tryPlayerMove(move >>> 16, move & 0xffff);
+    }
+  }
+
+  @Test
+  void hashShouldNotDependOnMoveOrder() {
+    Position a = new Position(new Dimension(8, 8), false);
+    a.addPiece(0, PLAYER, ROOK, 0);
+    a.addPiece(1, ENEMY, BISHOP, 10);
+    Position b = new Position(new Dimension(8, 8), false);
+    b.addPiece(1, ENEMY, BISHOP, 10);
+    b.addPiece(0, PLAYER, ROOK, 0);
+    assertEquals(a.hash(), b.hash());
+
+    a.movePiece(a.indexOf(0), 3);
+    a.movePiece(a.indexOf(1), 20);
+    b.movePiece(b.indexOf(1), 20);
+    b.movePiece(b.indexOf(0), 3);
+    assertEquals(a.hash(), b.hash());
+
+    a.addIntention(1, Direction.UP, 2);
+    assertNotEquals(a.hash(), b.hash());
+    b.addIntention(1, Direction.UP, 2);
+    assertEquals(a.hash(), b.hash());
+  }
+
+  @Test
+  void hashShouldDependOnPieceIdsAndIntentionOrder() {
+    Position a = new Position(new Dimension(8, 8), false);
+    a.addPiece(0, ENEMY, ROOK, 0);
+    a.addPiece(1, ENEMY, ROOK, 7);
+    Position b = new Position(new Dimension(8, 8), false);
+    b.addPiece(0, ENEMY, ROOK, 7);
+    b.addPiece(1, ENEMY, ROOK, 0);
+    assertNotEquals(a.hash(), b.hash());
+
+    a.addIntention(0, Direction.UP, 2);
+    b.addIntention(1, Direction.UP, 2);
+    assertNotEquals(a.hash(), b.hash());
+
+    Position c = new Position(new Dimension(8, 8), false);
+    c.addPiece(0, ENEMY, ROOK, 0);
+    c.addPiece(1, ENEMY, ROOK, 1);
+    Position d = c.copy();
+    c.addIntention(0, Direction.RIGHT, 1);
+    c.addIntention(1, Direction.RIGHT, 1);
+    d.addIntention(1, Direction.RIGHT, 1);
+    d.addIntention(0, Direction.RIGHT, 1);
+    assertNotEquals(c.hash(), d.hash());
+    assertEquals(Zobrist.hash(c), c.hash());
+    assertEquals(Zobrist.hash(d), d.hash());
+  }
+
+  @Test
+  void tableShouldKeepDeeperEntries() {
+    TranspositionTable table = new TranspositionTable(4);
+    long hash = 0x1234L;
+    long collision = hash + table.capacity();
+    assertEquals(-1, table.probe(hash));
+    assertTrue(table.store(hash, 5, 42, TranspositionTable.EXACT, 7));
+    int slot = table.probe(hash);
+    assertEquals(5, table.depth(slot));
+    assertEquals(42, table.score(slot));
+    assertEquals(7, table.move(slot));
+
+    assertFalse(table.store(collision, 2, 0, TranspositionTable.LOWER_BOUND, 0));
+    assertEquals(-1, table.probe(collision));
+    table.newSearch();
+    assertTrue(table.store(collision, 2, 0, TranspositionTable.LOWER_BOUND, 0));
+    assertEquals(-1, table.probe(hash));
+    assertEquals(TranspositionTable.LOWER_BOUND, table.bound(table.probe(collision)));
+  }
+}
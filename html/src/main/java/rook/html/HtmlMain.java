@@ -1,6 +1,7 @@
 package rook.html;
 
 import com.google.gwt.core.client.EntryPoint;
+import com.google.gwt.user.client.Window;
 import playn.html.HtmlPlatform;
 import rook.core.MainGame;
 
@@ -11,7 +12,9 @@ public class HtmlMain implements EntryPoint {
     // use config to customize the HTML platform, if needed
     HtmlPlatform plat = new HtmlPlatform(config);
     plat.assets().setPathPrefix("rook/");
-    new MainGame(plat);
+    MainGame.Config gameConfig = new MainGame.Config();
+    gameConfig.frameHud = Window.Location.getParameter("frameHud") != null;
+    new MainGame(plat, gameConfig);
     plat.start();
   }
 }
@@ -3,6 +3,10 @@ package rook.java;
 import playn.java.LWJGLPlatform;
 
 import rook.core.MainGame;
+import rook.core.Metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 
 public class JavaMain {
 
@@ -10,7 +14,32 @@ public class JavaMain {
     LWJGLPlatform.Config config = new LWJGLPlatform.Config();
     // use config to customize the Java platform, if needed
     LWJGLPlatform plat = new LWJGLPlatform(config);
-    new MainGame(plat);
+    MainGame.Config gameConfig = new MainGame.Config();
+    gameConfig.frameHud = Boolean.getBoolean("rook.frameHud");
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+      // The game loop runs on this thread
+      long threadId = Thread.currentThread().getId();
+      gameConfig.allocatedBytes = () -> ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threadId);
+    }
+    if (Boolean.getBoolean("rook.jfr")) gameConfig.metrics = jfrMetrics();
+    new MainGame(plat, gameConfig);
     plat.start();
   }
+
+  /**
+   * JfrMetrics is loaded by name, so that this still runs on JVMs without jdk.jfr.
+   *
+   * @returns the flight recorder metrics or {@link Metrics#NONE} if this JVM has no flight recorder
+   */
+  private static Metrics jfrMetrics() {
+    try {
+      Class.forName("jdk.jfr.FlightRecorder");
+      return (Metrics) Class.forName("rook.java.JfrMetrics").getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      System.err.println("Flight recorder not available, running without metrics: " + e);
+      return Metrics.NONE;
+    }
+  }
 }
@@ -0,0 +1,85 @@
+package rook.java;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import rook.core.Metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Reports the metrics of the rules as Java Flight Recorder events, e.g. with
+ * <pre>
+ *   java -Drook.jfr=true -XX:StartFlightRecording=filename=rook.jfr -jar rook-java.jar
+ * </pre>
+ * Needs JDK 11 or 8u262 and later, it is not compiled on older JDKs and {@link JavaMain} only loads it on request.
+ * Every timing is a rook.RulesTimer event. The counters are summed up and reported once per second as one
+ * rook.RulesCounter event per counter, an event per count would cost more than the counted work.
+ */
+public class JfrMetrics implements Metrics {
+
+  @Name("rook.RulesTimer")
+  @Label("Rules Timer")
+  @Category("Rook")
+  @StackTrace(false)
+  static class TimerEvent extends Event {
+    @Label("Timer")
+    String timer;
+    @Label("Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long time;
+  }
+
+  @Name("rook.RulesCounter")
+  @Label("Rules Counter")
+  @Description("The count since the last event")
+  @Category("Rook")
+  @Period("1 s")
+  @StackTrace(false)
+  static class CounterEvent extends Event {
+    @Label("Counter")
+    String counter;
+    @Label("Count")
+    long count;
+  }
+
+  private static final Counter[] COUNTERS = Counter.values();
+
+  /**
+   * Counted on the game thread and reported on the recorder's thread
+   */
+  private final AtomicLongArray counts = new AtomicLongArray(COUNTERS.length);
+
+  public JfrMetrics() {
+    FlightRecorder.addPeriodicEvent(CounterEvent.class, this::reportCounters);
+  }
+
+  @Override
+  public void count(Counter counter, int amount) {
+    counts.addAndGet(counter.ordinal(), amount);
+  }
+
+  @Override
+  public void time(Timer timer, long nanos) {
+    TimerEvent event = new TimerEvent();
+    if (!event.isEnabled()) return;
+    event.timer = timer.name();
+    event.time = nanos;
+    event.commit();
+  }
+
+  private void reportCounters() {
+    for (Counter counter : COUNTERS) {
+      CounterEvent event = new CounterEvent();
+      event.counter = counter.name();
+      event.count = counts.getAndSet(counter.ordinal(), 0);
+      event.commit();
+    }
+  }
+}
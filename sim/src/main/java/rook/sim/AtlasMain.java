@@ -0,0 +1,64 @@
+package rook.sim;
+
+import rook.core.ImageLoader;
+import rook.core.Piece;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Packs the piece images into the atlas that {@link ImageLoader} loads, e.g.
+ * <pre>
+ *   make atlas
+ * </pre>
+ * The atlas has a row per {@link Piece.Side} and a column per {@link Piece.Type}, each cell
+ * {@link ImageLoader#PIECE_SIZE} pixels wide and high.
+ */
+public class AtlasMain {
+
+  public static void main(String[] args) throws IOException {
+    String dir = "assets/src/main/resources/assets/images/cburnett";
+    String out = "assets/src/main/resources/assets/" + ImageLoader.PIECE_ATLAS;
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      switch (arg) {
+        case "-dir":
+          dir = args[++i];
+          break;
+        case "-out":
+          out = args[++i];
+          break;
+        default:
+          System.err.println("Unknown argument: " + arg);
+          System.err.println("Usage: AtlasMain [-dir DIR] [-out FILE]");
+          System.exit(1);
+      }
+    }
+    int size = ImageLoader.PIECE_SIZE;
+    Piece.Side[] sides = Piece.Side.values();
+    Piece.Type[] types = Piece.Type.values();
+    BufferedImage atlas = new BufferedImage(types.length * size, sides.length * size, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = atlas.createGraphics();
+    for (Piece.Side side : sides) {
+      for (Piece.Type type : types) {
+        File file = new File(dir, fileName(side, type));
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) throw new IOException("Cannot read image: " + file);
+        g.drawImage(image, type.ordinal() * size, side.ordinal() * size, size, size, null);
+      }
+    }
+    g.dispose();
+    ImageIO.write(atlas, "png", new File(out));
+    System.err.printf("Packed %d pieces into %s%n", sides.length * types.length, out);
+  }
+
+  /**
+   * The player plays the white pieces, e.g. wR.png for a player rook.
+   */
+  private static String fileName(Piece.Side side, Piece.Type type) {
+    return (side == Piece.Side.PLAYER ? "w" : "b") + type.name().charAt(0) + ".png";
+  }
+}
@@ -0,0 +1,17 @@
+package rook.sim;
+
+import rook.core.Engine;
+
+/**
+ * The result of one simulated game. {@link Engine.Outcome#RUNNING} means that the game hit the turn limit or that
+ * the player had no legal move left.
+ */
+final class GameResult {
+  final Engine.Outcome outcome;
+  final int turns;
+
+  GameResult(Engine.Outcome outcome, int turns) {
+    this.outcome = outcome;
+    this.turns = turns;
+  }
+}
@@ -0,0 +1,107 @@
+package rook.sim;
+
+import rook.core.LevelGenerator;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Generates validated levels on all cores, e.g.
+ * <pre>
+ *   make run-gen ARGS="-count 5000 -minMoves 3 -maxMoves 5 -out levels.txt"
+ * </pre>
+ * Writes one level per line: the level in {@link rook.core.Level} text form, a tab and the length of its shortest
+ * win. Level number i is sampled from its own seed, so a run is reproducible regardless of the number of threads.
+ */
+public class GenMain {
+
+  public static void main(String[] args) throws InterruptedException, FileNotFoundException {
+    LevelGenerator.Config config = new LevelGenerator.Config();
+    int count = 100;
+    long seed = 0;
+    int threads = Runtime.getRuntime().availableProcessors();
+    String out = null;
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      switch (arg) {
+        case "-count":
+          count = Integer.parseInt(args[++i]);
+          break;
+        case "-seed":
+          seed = Long.parseLong(args[++i]);
+          break;
+        case "-players":
+          config.playerPieces = Integer.parseInt(args[++i]);
+          break;
+        case "-minEnemies":
+          config.minEnemies = Integer.parseInt(args[++i]);
+          break;
+        case "-maxEnemies":
+          config.maxEnemies = Integer.parseInt(args[++i]);
+          break;
+        case "-minMoves":
+          config.minMoves = Integer.parseInt(args[++i]);
+          break;
+        case "-maxMoves":
+          config.maxMoves = Integer.parseInt(args[++i]);
+          break;
+        case "-maxNodes":
+          config.maxNodes = Integer.parseInt(args[++i]);
+          break;
+        case "-fog":
+          config.fog = true;
+          break;
+        case "-threads":
+          threads = Integer.parseInt(args[++i]);
+          break;
+        case "-out":
+          out = args[++i];
+          break;
+        default:
+          System.err.println("Unknown argument: " + arg);
+          System.err.println("Usage: GenMain [-count N] [-seed S] [-players N] [-minEnemies N] [-maxEnemies N]"
+                  + " [-minMoves N] [-maxMoves N] [-maxNodes N] [-fog] [-threads N] [-out FILE]");
+          System.exit(1);
+      }
+    }
+    System.err.printf("Generating %d levels on %d threads%n", count, threads);
+    long start = System.nanoTime();
+    LongAdder candidates = new LongAdder();
+    // Generators reuse their solver's tables, one per worker thread
+    ThreadLocal<LevelGenerator> generators = ThreadLocal.withInitial(() -> new LevelGenerator(config));
+    long runSeed = seed;
+    int levelCount = count;
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    List<String> levels;
+    try {
+      levels = pool.submit(() -> IntStream.range(0, levelCount)
+              .parallel()
+              .mapToObj(i -> {
+                LevelGenerator generator = generators.get();
+                int before = generator.candidates();
+                LevelGenerator.Result result = generator.generate(new Random(Simulator.gameSeed(runSeed, i)));
+                candidates.add(generator.candidates() - before);
+                return result.level + "\t" + result.solution.length();
+              })
+              .collect(Collectors.toList())).get();
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+    try (PrintStream stream = out != null ? new PrintStream(out) : null) {
+      PrintStream target = stream != null ? stream : System.out;
+      levels.forEach(target::println);
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    System.err.printf("%d levels from %d candidates in %.2fs (%.0f levels/min)%n",
+            count, candidates.sum(), seconds, count / seconds * 60);
+  }
+}
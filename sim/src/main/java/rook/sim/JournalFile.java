@@ -0,0 +1,31 @@
+package rook.sim;
+
+import rook.core.JournalReader;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Opens journal files memory mapped, so seeking in a long playtest only touches the pages it reads.
+ */
+public class JournalFile {
+
+  private JournalFile() {}
+
+  public static JournalReader open(Path path) throws IOException {
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      // The mapping stays valid after the channel is closed
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    return new JournalReader(new JournalReader.Input() {
+      @Override
+      public int length() { return buffer.limit(); }
+      @Override
+      public byte get(int offset) { return buffer.get(offset); }
+    });
+  }
+}
@@ -0,0 +1,58 @@
+package rook.sim;
+
+import rook.core.JournalReader;
+import rook.core.Position;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Prints a journal, e.g. one written by the simulator with -journal:
+ * <pre>
+ *   make run-journal ARGS="-in journals/game-17.rkj -turn 40"
+ * </pre>
+ * Lists the moves of every turn, or with -turn prints the position after that turn.
+ */
+public class JournalMain {
+
+  public static void main(String[] args) throws IOException {
+    String in = null;
+    int turn = -1;
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      switch (arg) {
+        case "-in":
+          in = args[++i];
+          break;
+        case "-turn":
+          turn = Integer.parseInt(args[++i]);
+          break;
+        default:
+          System.err.println("Unknown argument: " + arg);
+          usage();
+      }
+    }
+    if (in == null) usage();
+    JournalReader reader = JournalFile.open(Paths.get(in));
+    System.out.printf("%s: %dx%d, %d turns, keyframe every %d turns%n",
+            in, reader.dim.width(), reader.dim.height(), reader.turnCount(), reader.keyframeInterval);
+    if (turn < 0) {
+      for (int t = 1; t <= reader.turnCount(); t++) {
+        System.out.printf("%4d %s%n", t, reader.describeTurn(t));
+      }
+      return;
+    }
+    Position position = reader.seek(turn);
+    for (int index = 0; index < position.size(); index++) {
+      System.out.println(position.piece(index));
+    }
+    for (int i = 0; i < position.intentionCount(); i++) {
+      System.out.println(position.intention(i));
+    }
+  }
+
+  private static void usage() {
+    System.err.println("Usage: JournalMain -in FILE [-turn N]");
+    System.exit(1);
+  }
+}
@@ -0,0 +1,18 @@
+package rook.sim;
+
+/**
+ * Encodes a player move, i.e. a piece index and a destination square, into a single int. Supports boards with up
+ * to 65536 squares.
+ */
+final class Moves {
+
+  private Moves() {}
+
+  static int encode(int pieceIndex, int dest) {
+    return pieceIndex << 16 | dest;
+  }
+
+  static int pieceIndex(int move) { return move >>> 16; }
+
+  static int dest(int move) { return move & 0xffff; }
+}
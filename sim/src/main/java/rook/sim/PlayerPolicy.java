@@ -0,0 +1,113 @@
+package rook.sim;
+
+import rook.core.Direction;
+import rook.core.Engine;
+import rook.core.Piece;
+import rook.core.Position;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static de.cdietze.playn_util.PointUtils.*;
+
+/**
+ * Decides the player's moves in simulated games.
+ */
+public interface PlayerPolicy {
+
+  /**
+   * @returns the chosen move encoded by {@link Moves#encode} or -1 if the player has no legal move.
+   */
+  int pickMove(Engine engine, Random random);
+
+  static PlayerPolicy byName(String name) {
+    switch (name) {
+      case "random":
+        return random();
+      case "greedy":
+        return greedy();
+    }
+    throw new IllegalArgumentException("unknown policy: " + name);
+  }
+
+  /**
+   * Picks a uniformly random legal move.
+   */
+  static PlayerPolicy random() {
+    return (engine, random) -> new ScoredMoves().collect(engine, (position, pieceIndex, dest) -> 0).pick(random);
+  }
+
+  /**
+   * Prefers moves that push enemies over the board, then moves that push enemies at all. Never pushes the own king
+   * over the board unless there is no other move.
+   */
+  static PlayerPolicy greedy() {
+    return (engine, random) -> new ScoredMoves().collect(engine, PlayerPolicy::scorePush).pick(random);
+  }
+
+  static int scorePush(Position position, int pieceIndex, int dest) {
+    int pushedIndex = position.indexAt(dest);
+    if (pushedIndex < 0) return 0;
+    int pos = position.square(pieceIndex);
+    Direction dir = Direction.fromVector(toX(position.dim, dest) - toX(position.dim, pos), toY(position.dim, dest) - toY(position.dim, pos));
+    // Follow the push chain to the last piece
+    int x = toX(position.dim, dest);
+    int y = toY(position.dim, dest);
+    int lastIndex = pushedIndex;
+    boolean enemyPushed = false;
+    while (true) {
+      enemyPushed |= position.side(lastIndex) == Piece.Side.ENEMY;
+      x += dir.x();
+      y += dir.y();
+      if (!contains(position.dim, x, y)) break;
+      int next = position.indexAt(toIndex(position.dim, x, y));
+      if (next < 0) return enemyPushed ? 1 : 0;
+      lastIndex = next;
+    }
+    // The last piece falls off the board
+    if (position.side(lastIndex) == Piece.Side.ENEMY) return 2;
+    return position.type(lastIndex) == Piece.Type.KING ? -1 : 0;
+  }
+
+  interface Scorer {
+    int score(Position position, int pieceIndex, int dest);
+  }
+
+  /**
+   * Collects the legal moves with the best score.
+   */
+  final class ScoredMoves {
+    private int[] moves = new int[64];
+    private int size;
+    private int bestScore = Integer.MIN_VALUE;
+
+    ScoredMoves collect(Engine engine, Scorer scorer) {
+      Position position = engine.position;
+      BitSet dests = new BitSet();
+      for (int index = 0; index < position.size(); index++) {
+        if (position.side(index) != Piece.Side.PLAYER) continue;
+        dests.clear();
+        engine.playerMoves(index, dests);
+        for (int dest = dests.nextSetBit(0); dest >= 0; dest = dests.nextSetBit(dest + 1)) {
+          add(Moves.encode(index, dest), scorer.score(position, index, dest));
+        }
+      }
+      return this;
+    }
+
+    private void add(int move, int score) {
+      if (score < bestScore) return;
+      if (score > bestScore) {
+        bestScore = score;
+        size = 0;
+      }
+      if (size == moves.length) moves = Arrays.copyOf(moves, size * 2);
+      moves[size++] = move;
+    }
+
+    int pick(Random random) {
+      return size == 0 ? -1 : moves[random.nextInt(size)];
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package rook.sim;
+
+import rook.core.EnemyPolicy;
+import rook.core.Levels;
+import rook.core.SearchPlanner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.function.Supplier;
+
+/**
+ * Command line entry point of the simulator, e.g.
+ * <pre>
+ *   make run-sim ARGS="-games 10000 -level 2 -policy greedy"
+ * </pre>
+ */
+public class SimMain {
+
+  public static void main(String[] args) throws InterruptedException, IOException {
+    Simulator.Config config = new Simulator.Config();
+    SummingMetrics metrics = null;
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      switch (arg) {
+        case "-level":
+          config.level = Integer.parseInt(args[++i]);
+          break;
+        case "-size":
+          config.size = Integer.parseInt(args[++i]);
+          break;
+        case "-arena":
+          config.arenaEnemies = Integer.parseInt(args[++i]);
+          break;
+        case "-games":
+          config.games = Integer.parseInt(args[++i]);
+          break;
+        case "-seed":
+          config.seed = Long.parseLong(args[++i]);
+          break;
+        case "-maxTurns":
+          config.maxTurns = Integer.parseInt(args[++i]);
+          break;
+        case "-fog":
+          config.fog = true;
+          break;
+        case "-policy":
+          config.policy = PlayerPolicy.byName(args[++i]);
+          break;
+        case "-enemy":
+          config.enemyPolicy = enemyPolicy(args[++i]);
+          break;
+        case "-threads":
+          config.threads = Integer.parseInt(args[++i]);
+          break;
+        case "-journal":
+          config.journalDir = Paths.get(args[++i]);
+          break;
+        case "-metrics":
+          metrics = new SummingMetrics();
+          config.metrics = metrics;
+          break;
+        default:
+          System.err.println("Unknown argument: " + arg);
+          System.err.println("Usage: SimMain [-level 1.." + Levels.COUNT + "] [-size N] [-arena ENEMIES] [-games N] [-seed S] [-maxTurns N] [-fog]"
+                  + " [-policy random|greedy] [-enemy random|search] [-threads N] [-journal DIR] [-metrics]");
+          System.exit(1);
+      }
+    }
+    if (config.size != 8 && config.arenaEnemies <= 0) {
+      // The levels are laid out for 8x8
+      System.err.println("-size " + config.size + " needs -arena");
+      System.exit(1);
+    }
+    if (config.journalDir != null) Files.createDirectories(config.journalDir);
+    if (config.arenaEnemies > 0) {
+      System.out.printf("Simulating %d games in a %dx%d arena with %d enemies on %d threads%n",
+              config.games, config.size, config.size, config.arenaEnemies, config.threads);
+    } else {
+      System.out.printf("Simulating %d games of level %d on %d threads%n", config.games, config.level, config.threads);
+    }
+    long start = System.nanoTime();
+    Stats stats = new Simulator(config).run();
+    stats.print(System.out, System.nanoTime() - start);
+    if (metrics != null) metrics.print(System.out, stats.totalTurns());
+  }
+
+  private static Supplier<EnemyPolicy> enemyPolicy(String name) {
+    switch (name) {
+      case "random":
+        return EnemyPolicy::random;
+      case "search":
+        // Only a node budget, so that the games don't depend on the speed of the machine
+        return () -> new SearchPlanner(0, SearchPlanner.DEFAULT_MAX_NODES);
+    }
+    throw new IllegalArgumentException("unknown enemy policy: " + name);
+  }
+}
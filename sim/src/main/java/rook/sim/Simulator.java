@@ -0,0 +1,123 @@
+package rook.sim;
+
+import pythagoras.i.Dimension;
+import rook.core.EnemyPolicy;
+import rook.core.Engine;
+import rook.core.JournalWriter;
+import rook.core.Levels;
+import rook.core.Metrics;
+import rook.core.Position;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Plays many complete games headless and in parallel. Every game has its own {@link Random} seeded from the run
+ * seed and the game number, so a run is reproducible regardless of how the games are spread across threads.
+ */
+public class Simulator {
+
+  public static class Config {
+    public int level = 1;
+    /**
+     * Board width and height, boards other than 8x8 need an arena
+     */
+    public int size = 8;
+    /**
+     * If positive, plays {@link Levels#setupArena} with this many enemies instead of the level
+     */
+    public int arenaEnemies = 0;
+    public int games = 1000;
+    public long seed = 0;
+    public int maxTurns = 200;
+    public boolean fog = false;
+    public PlayerPolicy policy = PlayerPolicy.random();
+    /**
+     * Creates the enemy policy of each game, policies keep search state and must not be shared between threads
+     */
+    public Supplier<EnemyPolicy> enemyPolicy = EnemyPolicy::random;
+    public int threads = Runtime.getRuntime().availableProcessors();
+    /**
+     * If set, every game is recorded to game-N.rkj in this directory
+     */
+    public Path journalDir = null;
+    /**
+     * Shared by all games, so it must be thread-safe
+     */
+    public Metrics metrics = Metrics.NONE;
+  }
+
+  private final Config config;
+
+  public Simulator(Config config) {
+    this.config = config;
+  }
+
+  Stats run() throws InterruptedException {
+    ForkJoinPool pool = new ForkJoinPool(config.threads);
+    try {
+      return pool.submit(() -> IntStream.range(0, config.games)
+              .parallel()
+              .mapToObj(game -> play(game, gameSeed(config.seed, game)))
+              .collect(Stats::new, Stats::add, Stats::merge)).get();
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Spreads consecutive game numbers over the whole seed space (SplitMix64 finalizer).
+   */
+  static long gameSeed(long seed, int game) {
+    long z = seed + (game + 1) * 0x9e3779b97f4a7c15L;
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  GameResult play(int game, long seed) {
+    Random random = new Random(seed);
+    Dimension dim = new Dimension(config.size, config.size);
+    Position position = new Position(dim, config.fog);
+    Engine engine = new Engine(position, new Random(random.nextLong()));
+    engine.setEnemyPolicy(config.enemyPolicy.get());
+    engine.setMetrics(config.metrics);
+    if (config.arenaEnemies > 0) {
+      Levels.setupArena(dim, config.arenaEnemies, random, engine::addPiece);
+    } else {
+      Levels.setup(config.level, engine::addPiece);
+    }
+    JournalWriter journal = null;
+    if (config.journalDir != null) {
+      journal = new JournalWriter(position);
+      engine.setListener(journal);
+    }
+    int turns = 0;
+    while (turns < config.maxTurns && engine.outcome() == Engine.Outcome.RUNNING) {
+      int move = config.policy.pickMove(engine, random);
+      if (move < 0) break;
+      engine.tryPlayerMove(Moves.pieceIndex(move), Moves.dest(move));
+      if (journal != null) journal.endTurn(position);
+      turns++;
+    }
+    if (journal != null) writeJournal(game, journal);
+    return new GameResult(engine.outcome(), turns);
+  }
+
+  private void writeJournal(int game, JournalWriter journal) {
+    try {
+      Files.write(config.journalDir.resolve("game-" + game + ".rkj"), journal.toByteArray());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package rook.sim;
+
+import rook.core.Engine;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Aggregated results of many games. Not thread-safe, parallel runs collect into separate instances and
+ * {@link #merge} them.
+ */
+final class Stats {
+  int games;
+  int won;
+  int lost;
+  int undecided;
+  private int[] turns = new int[64];
+
+  void add(GameResult result) {
+    switch (result.outcome) {
+      case WON:
+        won++;
+        break;
+      case LOST:
+        lost++;
+        break;
+      default:
+        undecided++;
+    }
+    if (games == turns.length) turns = Arrays.copyOf(turns, games * 2);
+    turns[games++] = result.turns;
+  }
+
+  void merge(Stats other) {
+    won += other.won;
+    lost += other.lost;
+    undecided += other.undecided;
+    if (games + other.games > turns.length) turns = Arrays.copyOf(turns, games + other.games);
+    System.arraycopy(other.turns, 0, turns, games, other.games);
+    games += other.games;
+  }
+
+  long totalTurns() {
+    long result = 0;
+    for (int i = 0; i < games; i++) result += turns[i];
+    return result;
+  }
+
+  void print(PrintStream out, long elapsedNanos) {
+    double seconds = elapsedNanos / 1e9;
+    out.printf("games:       %d in %.2fs (%.0f games/s)%n", games, seconds, games / seconds);
+    out.printf("won:         %d (%.1f%%)%n", won, percent(won));
+    out.printf("lost:        %d (%.1f%%)%n", lost, percent(lost));
+    out.printf("undecided:   %d (%.1f%%)%n", undecided, percent(undecided));
+    if (games == 0) return;
+    int[] sorted = Arrays.copyOf(turns, games);
+    Arrays.sort(sorted);
+    long total = 0;
+    for (int t : sorted) total += t;
+    out.printf("turns:       min %d, p50 %d, p90 %d, p99 %d, max %d, mean %.1f%n",
+            sorted[0], percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), sorted[games - 1],
+            (double) total / games);
+    printHistogram(out, sorted);
+  }
+
+  private double percent(int count) {
+    return games == 0 ? 0 : 100.0 * count / games;
+  }
+
+  private static int percentile(int[] sorted, int p) {
+    return sorted[Math.min(sorted.length - 1, sorted.length * p / 100)];
+  }
+
+  private static void printHistogram(PrintStream out, int[] sorted) {
+    final int buckets = 10;
+    final int barWidth = 50;
+    int min = sorted[0];
+    int bucketSize = Math.max(1, (sorted[sorted.length - 1] - min + buckets) / buckets);
+    int[] counts = new int[buckets];
+    for (int t : sorted) counts[Math.min(buckets - 1, (t - min) / bucketSize)]++;
+    int maxCount = Arrays.stream(counts).max().getAsInt();
+    for (int i = 0; i < buckets; i++) {
+      int from = min + i * bucketSize;
+      StringBuilder bar = new StringBuilder();
+      for (int j = 0; j < counts[i] * barWidth / maxCount; j++) bar.append('#');
+      out.printf("  %5d-%-5d %7d %s%n", from, from + bucketSize - 1, counts[i], bar);
+    }
+  }
+}
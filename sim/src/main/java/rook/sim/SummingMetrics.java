@@ -0,0 +1,47 @@
+package rook.sim;
+
+import rook.core.Metrics;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sums up the metrics of all games of a run. Thread-safe, the games of a run share one instance.
+ */
+final class SummingMetrics implements Metrics {
+
+  private final LongAdder[] counts = adders(Counter.values().length);
+  private final LongAdder[] timerCounts = adders(Timer.values().length);
+  private final LongAdder[] timerNanos = adders(Timer.values().length);
+
+  private static LongAdder[] adders(int length) {
+    LongAdder[] result = new LongAdder[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = new LongAdder();
+    }
+    return result;
+  }
+
+  @Override
+  public void count(Counter counter, int amount) {
+    counts[counter.ordinal()].add(amount);
+  }
+
+  @Override
+  public void time(Timer timer, long nanos) {
+    timerCounts[timer.ordinal()].increment();
+    timerNanos[timer.ordinal()].add(nanos);
+  }
+
+  void print(PrintStream out, long turns) {
+    out.println("Metrics per turn:");
+    for (Counter counter : Counter.values()) {
+      out.printf("  %-26s %10.2f%n", counter, counts[counter.ordinal()].sum() / (double) Math.max(1, turns));
+    }
+    for (Timer timer : Timer.values()) {
+      long count = timerCounts[timer.ordinal()].sum();
+      if (count == 0) continue;
+      out.printf("  %-26s %10.2f us (%d timed)%n", timer, timerNanos[timer.ordinal()].sum() / 1e3 / count, count);
+    }
+  }
+}